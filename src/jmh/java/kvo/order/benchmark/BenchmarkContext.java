@@ -0,0 +1,32 @@
+package kvo.order.benchmark;
+
+import kvo.order.OrderApplication;
+import kvo.order.service.IndicatorService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Контекст приложения для бенчмарков: без веб-сервера, БД H2 в памяти из application.properties.
+// Запускать из корня проекта - дивизионы читаются из setting.properties в рабочем каталоге.
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(OrderApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.jpa.show-sql=false")
+                .run();
+    }
+
+    // Очистка таблиц между итерациями через сервис: вместе с таблицами очищаются снимок, индекс иерархии
+    // и поисковый индекс
+    public static void clear(ConfigurableApplicationContext context) {
+        IndicatorService service = context.getBean(IndicatorService.class);
+        service.deleteAllIndicators();
+        service.deleteAllErrors();
+    }
+}
@@ -0,0 +1,174 @@
+package kvo.order.benchmark;
+
+import kvo.order.config.DivisionRegistry;
+import kvo.order.model.TargetIndicator;
+import kvo.order.service.ImportCells;
+import kvo.order.service.ImportRow;
+import kvo.order.service.IndicatorRowValidator;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Разбор и проверка ячеек строки импорта: прежние split/matches/SimpleDateFormat (legacy*)
+// против ImportCells, и проверка строки целиком (IndicatorRowValidator).
+// Строки строятся здесь же, без книги: бенчмарк не зависит от чтения листа.
+// Время и аллокации - на одну строку (ячейку даты): -prof gc, gc.alloc.rate.norm - байт на строку.
+// Запуск: mvn -Pjmh verify -Djmh.args="CellDecodingBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(CellDecodingBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CellDecodingBenchmark {
+    static final int ROWS = 1000;
+    private static final String[] STRUCTURES = {"Раздел", "Подраздел", "Цель", "Задача", "Подзадача", "Мероприятие"};
+    private static final String[] DIVISIONS = {"Группа", "ДКА", "ДАК", "ДОТ", "ДСА", "ТРМ", "Болтен"};
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^GAZ\\\\[\\w.-]+$", Pattern.CASE_INSENSITIVE);
+
+    private List<ImportRow> rows;
+    private double[] excelDates;
+    private IndicatorRowValidator validator;
+    private DivisionRegistry divisions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new ArrayList<>(ROWS);
+        Random random = new Random(20240101L);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row(i, random));
+        }
+        excelDates = new double[rows.size()];
+        for (int i = 0; i < excelDates.length; i++) {
+            excelDates[i] = 45292 + i % 700; // 2024-01-01 и далее
+        }
+        validator = new IndicatorRowValidator();
+        List<TargetIndicator.Division> configured = new ArrayList<>();
+        for (String name : new String[]{"Группа", "ДКА", "ДАК", "ДОТ", "ДСА", "ТРМ", "Болтен", "error"}) {
+            configured.add(new TargetIndicator.Division(name));
+        }
+        divisions = new DivisionRegistry(configured, 1);
+    }
+
+    // Строка как из листа: номер по глубине структуры, даты dd-MM-yyyy, логины GAZ\...;
+    // каждая десятая - с ошибкой в одной из ячеек
+    private static ImportRow row(int index, Random random) {
+        int depth = index % STRUCTURES.length;
+        StringBuilder number = new StringBuilder();
+        for (int level = 0; level <= depth; level++) {
+            number.append(1 + random.nextInt(level == 0 ? 20 : 9)).append('.');
+        }
+        LocalDate start = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365));
+        String[] values = new String[ImportRow.COLUMN_COUNT];
+        values[0] = number.toString();
+        values[1] = STRUCTURES[depth];
+        values[2] = Integer.toString(1 + random.nextInt(3));
+        values[3] = "Цель номер " + index + " по направлению " + DIVISIONS[index % DIVISIONS.length];
+        values[4] = DATE_FORMATTER.format(start);
+        values[5] = DATE_FORMATTER.format(start.plusDays(1 + random.nextInt(300)));
+        values[6] = depth < 2 ? "" : "GAZ\\coord" + random.nextInt(50);
+        values[7] = DIVISIONS[random.nextInt(DIVISIONS.length)] + ", " + DIVISIONS[random.nextInt(DIVISIONS.length)];
+        values[8] = "GAZ\\owner" + random.nextInt(100);
+        values[9] = "GAZ\\a" + random.nextInt(100) + "; GAZ\\b" + random.nextInt(100) + ", GAZ\\c" + random.nextInt(100);
+        values[10] = "";
+        values[11] = "Бизнес " + random.nextInt(5);
+        if (index % 10 == 9) {
+            switch (random.nextInt(4)) {
+                case 0 -> values[0] = "1.a.";
+                case 1 -> values[5] = values[4];
+                case 2 -> values[8] = "ivanov";
+                default -> values[9] = "GAZ\\a;;petrov";
+            }
+        }
+        return new ImportRow(index + 2, values);
+    }
+
+    @Benchmark
+    public void validateRows(Blackhole blackhole) {
+        for (ImportRow row : rows) {
+            blackhole.consume(validator.validate(row, divisions));
+        }
+    }
+
+    @Benchmark
+    public void legacyCellChecks(Blackhole blackhole) {
+        for (ImportRow row : rows) {
+            String number = row.cell(0);
+            boolean numeric = true;
+            for (String part : number.split("\\.")) {
+                String trimmed = part.trim();
+                if (!trimmed.isEmpty() && !trimmed.matches("\\d+")) {
+                    numeric = false;
+                    break;
+                }
+            }
+            String[] parts = number.split("\\.");
+            blackhole.consume(numeric && parts.length > 0 && parts[0].trim().matches("\\d+") && parts.length == 1);
+            blackhole.consume(legacyLoginList(row.cell(6)));
+            blackhole.consume(row.cell(8).split(";").length);
+            blackhole.consume(legacyLoginSet(row.cell(9)));
+            if (!row.cell(4).isEmpty() && !row.cell(5).isEmpty()) {
+                blackhole.consume(LocalDate.parse(row.cell(4).trim(), DATE_FORMATTER)
+                        .isBefore(LocalDate.parse(row.cell(5).trim(), DATE_FORMATTER)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void cellChecks(Blackhole blackhole) {
+        for (ImportRow row : rows) {
+            String number = row.cell(0);
+            blackhole.consume(ImportCells.isDottedNumber(number) && ImportCells.segmentCount(number, '.') > 0
+                    && ImportCells.isRootNumber(number));
+            blackhole.consume(!row.cell(6).isEmpty() && ImportCells.isLoginList(row.cell(6)));
+            blackhole.consume(ImportCells.segmentCount(row.cell(8), ';'));
+            blackhole.consume(ImportCells.isLoginSet(row.cell(9)));
+            if (!row.cell(4).isEmpty() && !row.cell(5).isEmpty()) {
+                blackhole.consume(ImportCells.parseDate(row.cell(4)).isBefore(ImportCells.parseDate(row.cell(5))));
+            }
+        }
+    }
+
+    @Benchmark
+    public void legacyDateFormat(Blackhole blackhole) {
+        for (double value : excelDates) {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy");
+            blackhole.consume(dateFormat.format(DateUtil.getJavaDate(value, false)));
+        }
+    }
+
+    @Benchmark
+    public void dateFormat(Blackhole blackhole) {
+        for (double value : excelDates) {
+            blackhole.consume(ImportCells.formatDate(DateUtil.getLocalDateTime(value, false)));
+        }
+    }
+
+    private static boolean legacyLoginList(String emails) {
+        if (emails == null || emails.isEmpty()) return false;
+        for (String email : emails.split(";")) {
+            if (!EMAIL_PATTERN.matcher(email.trim()).matches()) return false;
+        }
+        return true;
+    }
+
+    private static boolean legacyLoginSet(String emails) {
+        if (emails == null || emails.isEmpty()) return true;
+        for (String email : emails.split("[,\\s;]+")) {
+            String trimmed = email.trim();
+            if (!trimmed.isEmpty() && !EMAIL_PATTERN.matcher(trimmed).matches()) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package kvo.order.benchmark;
+
+import kvo.order.config.DivisionRegistry;
+import kvo.order.model.TargetIndicator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Разбор ячейки "Дивизионы": Division.fromStringList (поиск перебором списка)
+// против DivisionRegistry.parse (хеш-индекс). Время - на пачку из CELLS ячеек.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DivisionParsingBenchmark {
+    private static final int CELLS = 1000;
+    private static final String[] NAMES = {"Группа", "ДКА", "ДАК", "ДОТ", "ДСА", "ТРМ", "Болтен"};
+
+    // Число настроенных дивизионов: в setting.properties их 8, больший справочник показывает рост перебора
+    @Param({"8", "64"})
+    private int configured;
+
+    private List<TargetIndicator.Division> divisions;
+    private DivisionRegistry registry;
+    private String[] cells;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        divisions = new ArrayList<>();
+        for (String name : NAMES) {
+            divisions.add(new TargetIndicator.Division(name));
+        }
+        for (int i = divisions.size(); i < configured - 1; i++) {
+            divisions.add(new TargetIndicator.Division("Дивизион" + i));
+        }
+        divisions.add(new TargetIndicator.Division("error"));
+        registry = new DivisionRegistry(divisions, 1);
+
+        Random random = new Random(SvodWorkbookGenerator.DEFAULT_SEED);
+        cells = new String[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            int count = 1 + random.nextInt(3);
+            StringBuilder cell = new StringBuilder();
+            for (int j = 0; j < count; j++) {
+                if (j > 0) {
+                    cell.append("; ");
+                }
+                cell.append(random.nextInt(20) == 0 ? "НЕТ_ТАКОГО" : divisions.get(random.nextInt(divisions.size() - 1)).getDisplayName());
+            }
+            cells[i] = cell.toString();
+        }
+    }
+
+    @Benchmark
+    public void fromStringList(Blackhole blackhole) {
+        for (String cell : cells) {
+            blackhole.consume(TargetIndicator.Division.fromStringList(cell, divisions));
+        }
+    }
+
+    @Benchmark
+    public void registryParse(Blackhole blackhole) {
+        for (String cell : cells) {
+            blackhole.consume(registry.parse(cell));
+        }
+    }
+}
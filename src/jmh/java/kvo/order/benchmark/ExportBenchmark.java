@@ -0,0 +1,74 @@
+package kvo.order.benchmark;
+
+import kvo.order.service.IndicatorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Экспорт в XLSX (IndicatorService.exportToXls): type=main - индикаторы, errors - ошибки.
+// Данные загружаются один раз импортом сгенерированной книги; файл пишется в поток-счётчик.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportBenchmark {
+
+    @Param({"1000", "20000"})
+    private int rows;
+
+    // Доля ошибок 0.5 - обе таблицы одного порядка
+    @Param({"0.5"})
+    private double errorRatio;
+
+    @Param({"main", "errors"})
+    private String type;
+
+    private ConfigurableApplicationContext context;
+    private IndicatorService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path workbook = new SvodWorkbookGenerator(rows, errorRatio).writeTemp();
+        try {
+            context = BenchmarkContext.start();
+            service = context.getBean(IndicatorService.class);
+            service.importWorkbook(new MockMultipartFile("file", "svod.xlsx", null, Files.readAllBytes(workbook)));
+        } finally {
+            Files.deleteIfExists(workbook);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long exportToXls() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        service.exportToXls(type, out);
+        return out.count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package kvo.order.benchmark;
+
+import kvo.order.config.DivisionConfig;
+import kvo.order.config.DivisionRegistry;
+import kvo.order.service.ImportResult;
+import kvo.order.service.ImportRow;
+import kvo.order.service.IndicatorRowValidator;
+import kvo.order.service.IndicatorService;
+import kvo.order.service.XlsxStreamingReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Импорт книги "СВОД": полный путь IndicatorService.importWorkbook (чтение, проверка, запись в H2)
+// и отдельно чтение + проверка строк без БД. Время - на одну книгу; строк/с = rows / время.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ImportBenchmark {
+
+    @Param({"1000", "20000"})
+    private int rows;
+
+    @Param({"0.1"})
+    private double errorRatio;
+
+    private ConfigurableApplicationContext context;
+    private IndicatorService service;
+    private XlsxStreamingReader reader;
+    private IndicatorRowValidator validator;
+    private DivisionRegistry divisions;
+    private Path workbook;
+    private MockMultipartFile upload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workbook = new SvodWorkbookGenerator(rows, errorRatio).writeTemp();
+        upload = new MockMultipartFile("file", "svod.xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", Files.readAllBytes(workbook));
+        context = BenchmarkContext.start();
+        service = context.getBean(IndicatorService.class);
+        reader = context.getBean(XlsxStreamingReader.class);
+        validator = context.getBean(IndicatorRowValidator.class);
+        divisions = context.getBean(DivisionConfig.class).getRegistry();
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        BenchmarkContext.clear(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(workbook);
+    }
+
+    @Benchmark
+    public ImportResult importWorkbook() throws IOException {
+        ImportResult result = service.importWorkbook(upload);
+        if (result.getTotalRows() != rows) {
+            throw new IllegalStateException("Импортировано " + result.getTotalRows() + " строк из " + rows);
+        }
+        return result;
+    }
+
+    // Чтение листа SAX-ом и проверка строк в одном потоке - без пула и без записи
+    @Benchmark
+    public void readAndValidate(Blackhole blackhole) throws IOException {
+        reader.readFirstSheet(workbook.toFile(), new XlsxStreamingReader.RowHandler() {
+            @Override
+            public boolean startSheet(String sheetName) {
+                return true;
+            }
+
+            @Override
+            public void row(ImportRow row) {
+                blackhole.consume(validator.validate(row, divisions));
+            }
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package kvo.order.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузка на работающее приложение для сравнения режимов потоков (spring.threads.virtual.enabled=false/true).
+// Одновременно: readers клиентов читают лёгкий эндпоинт, uploads клиентов синхронно загружают книгу,
+// exports клиентов скачивают выгрузку. Итог - число и перцентили латентности чтений и счётчики тяжёлых запросов.
+// Запуск (приложение уже поднято):
+//   mvn -Pjmh test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=kvo.order.benchmark.LoadDriver
+//       -Dexec.args="url=http://localhost:8087 readers=50 uploads=250 exports=10 seconds=30 rows=500"
+// Пул Tomcat по умолчанию - 200 потоков, поэтому uploads > 200 показывает разницу режимов.
+// Тот же прогон с -Dapp.heavy-operations.max-concurrent=1000 у приложения показывает вклад HeavyOperationLimiter.
+public class LoadDriver {
+    private static final String BOUNDARY = "----load-driver-boundary";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String url;
+    private final String readPath;
+    private final Duration requestTimeout;
+
+    private final List<Long> readLatencies = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong readErrors = new AtomicLong();
+    private final AtomicLong uploadsDone = new AtomicLong();
+    private final AtomicLong uploadsRejected = new AtomicLong();
+    private final AtomicLong uploadErrors = new AtomicLong();
+    private final AtomicLong exportsDone = new AtomicLong();
+    private final AtomicLong exportBytes = new AtomicLong();
+    private final AtomicLong exportErrors = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    LoadDriver(String url, String readPath, Duration requestTimeout) {
+        this.url = url;
+        this.readPath = readPath;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1) {
+                System.err.println("Аргументы: url= readers= uploads= exports= seconds= rows= path= timeout=");
+                System.exit(1);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String url = options.getOrDefault("url", "http://localhost:8087");
+        int readers = Integer.parseInt(options.getOrDefault("readers", "50"));
+        int uploads = Integer.parseInt(options.getOrDefault("uploads", "250"));
+        int exports = Integer.parseInt(options.getOrDefault("exports", "10"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int rows = Integer.parseInt(options.getOrDefault("rows", "500"));
+        String path = options.getOrDefault("path", "/api/order/data/indicators?size=50");
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "60")));
+
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        new SvodWorkbookGenerator(rows, 0.1).write(workbook);
+
+        LoadDriver driver = new LoadDriver(url, path, timeout);
+        driver.run(readers, uploads, exports, seconds, multipart(workbook.toByteArray()));
+    }
+
+    void run(int readers, int uploads, int exports, int seconds, byte[] uploadBody) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(readers + uploads + exports);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(client("reader-" + i, finished, this::read));
+        }
+        for (int i = 0; i < uploads; i++) {
+            threads.add(client("upload-" + i, finished, () -> upload(uploadBody)));
+        }
+        for (int i = 0; i < exports; i++) {
+            threads.add(client("export-" + i, finished, this::export));
+        }
+        long started = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        running = false;
+        finished.await();
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        report(readers, uploads, exports, elapsed);
+    }
+
+    private Thread client(String name, CountDownLatch finished, Runnable call) {
+        Thread thread = new Thread(() -> {
+            try {
+                while (running) {
+                    call.run();
+                }
+            } finally {
+                finished.countDown();
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void read() {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request(readPath).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {
+                readLatencies.add(System.nanoTime() - started);
+            } else {
+                readErrors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            readErrors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void upload(byte[] body) {
+        try {
+            HttpResponse<String> response = client.send(request("/api/order/upload")
+                            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 503) {
+                uploadsRejected.incrementAndGet();
+            } else if (response.statusCode() == 200 && response.body().contains("\"success\":true")) {
+                uploadsDone.incrementAndGet();
+            } else {
+                uploadErrors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            uploadErrors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void export() {
+        try {
+            HttpResponse<byte[]> response = client.send(request("/api/order/export/main").GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200) {
+                exportsDone.incrementAndGet();
+                exportBytes.addAndGet(response.body().length);
+            } else {
+                exportErrors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            exportErrors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path)).timeout(requestTimeout);
+    }
+
+    private void report(int readers, int uploads, int exports, double elapsed) {
+        List<Long> latencies;
+        synchronized (readLatencies) {
+            latencies = new ArrayList<>(readLatencies);
+        }
+        Collections.sort(latencies);
+        System.out.printf("Клиенты: чтение %d, загрузка %d, выгрузка %d; %.1f с%n", readers, uploads, exports, elapsed);
+        System.out.printf("Чтение %s: %d ответов (%.1f/с), ошибок %d, p50 %.1f мс, p95 %.1f мс, p99 %.1f мс, max %.1f мс%n",
+                readPath, latencies.size(), latencies.size() / elapsed, readErrors.get(),
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 1.0));
+        System.out.printf("Загрузки: успешно %d (%.1f/с), 503 %d, ошибок %d%n",
+                uploadsDone.get(), uploadsDone.get() / elapsed, uploadsRejected.get(), uploadErrors.get());
+        System.out.printf("Выгрузки: успешно %d, %d КБ, ошибок %d%n",
+                exportsDone.get(), exportBytes.get() / 1024, exportErrors.get());
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    private static byte[] multipart(byte[] workbook) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.xlsx\"\r\n"
+                + "Content-Type: application/vnd.openxmlformats-officedocument.spreadsheetml.sheet\r\n\r\n";
+        body.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(workbook);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
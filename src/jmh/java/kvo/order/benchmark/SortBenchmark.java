@@ -0,0 +1,66 @@
+package kvo.order.benchmark;
+
+import kvo.order.model.TargetIndicator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сортировка индикаторов по номеру: прежний VERSION_COMPARATOR (split на каждое сравнение)
+// против сравнения готовых ключей sortKey, и стоимость построения ключей.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBenchmark {
+    private static final Comparator<TargetIndicator> SORT_KEY_ORDER = Comparator.comparing(TargetIndicator::getSortKey);
+
+    @Param({"1000", "20000", "200000"})
+    private int size;
+
+    private List<TargetIndicator> shuffled;
+    private List<String> numbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shuffled = new ArrayList<>(size);
+        numbers = new ArrayList<>(size);
+        for (List<Integer> parts : new SvodWorkbookGenerator(size, 0).numbers()) {
+            StringBuilder number = new StringBuilder();
+            parts.forEach(part -> number.append(part).append('.'));
+            TargetIndicator indicator = new TargetIndicator();
+            indicator.setNumber(number.toString());
+            shuffled.add(indicator);
+            numbers.add(number.toString());
+        }
+        Collections.shuffle(shuffled, new Random(SvodWorkbookGenerator.DEFAULT_SEED));
+    }
+
+    @Benchmark
+    public List<TargetIndicator> versionComparator() {
+        List<TargetIndicator> copy = new ArrayList<>(shuffled);
+        copy.sort(TargetIndicator.VERSION_COMPARATOR);
+        return copy;
+    }
+
+    @Benchmark
+    public List<TargetIndicator> sortKey() {
+        List<TargetIndicator> copy = new ArrayList<>(shuffled);
+        copy.sort(SORT_KEY_ORDER);
+        return copy;
+    }
+
+    @Benchmark
+    public void buildSortKeys(Blackhole blackhole) {
+        for (String number : numbers) {
+            blackhole.consume(TargetIndicator.sortKeyOf(number));
+        }
+    }
+}
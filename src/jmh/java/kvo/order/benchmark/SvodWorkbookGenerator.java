@@ -0,0 +1,227 @@
+package kvo.order.benchmark;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Генератор книг "СВОД" для бенчмарков. Одинаковые параметры (строки, доля ошибок, seed) дают одинаковую книгу.
+// Валидные строки проходят все проверки IndicatorRowValidator и проверки иерархии импорта;
+// в долю errorRatio строк вносится одна ошибка из набора ERROR_KINDS.
+// Запуск отдельно: java -cp ... kvo.order.benchmark.SvodWorkbookGenerator <строк> <доля ошибок> <файл> [seed]
+public class SvodWorkbookGenerator {
+    public static final long DEFAULT_SEED = 20240101L;
+    // Дивизионы из setting.properties
+    private static final String[] DIVISIONS = {"Группа", "ДКА", "ДАК", "ДОТ", "ДСА", "ТРМ", "Болтен"};
+    // Структура по глубине номера: "1." - Раздел, "1.1." - Подраздел, ...
+    private static final String[] STRUCTURES = {"Раздел", "Подраздел", "Цель", "Задача", "Подзадача", "Мероприятие"};
+    private static final int[] FAN_OUT = {0, 4, 3, 3, 2, 3};
+    private static final String[] ERROR_KINDS = {
+            "owner", "division", "deadline", "coordinator", "number", "structure", "responsibles", "parent"};
+    private static final LocalDate BASE_DATE = LocalDate.of(2024, 1, 1);
+
+    private final int rows;
+    private final double errorRatio;
+    private final long seed;
+
+    public SvodWorkbookGenerator(int rows, double errorRatio, long seed) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("Число строк должно быть положительным");
+        }
+        if (errorRatio < 0 || errorRatio > 1) {
+            throw new IllegalArgumentException("Доля ошибок должна быть от 0 до 1");
+        }
+        this.rows = rows;
+        this.errorRatio = errorRatio;
+        this.seed = seed;
+    }
+
+    public SvodWorkbookGenerator(int rows, double errorRatio) {
+        this(rows, errorRatio, DEFAULT_SEED);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Использование: SvodWorkbookGenerator <строк> <доля ошибок> <файл> [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        Path target = Paths.get(args[2]);
+        new SvodWorkbookGenerator(Integer.parseInt(args[0]), Double.parseDouble(args[1]), seed).write(target);
+        System.out.println("Сгенерировано " + args[0] + " строк: " + target.toAbsolutePath());
+    }
+
+    public Path writeTemp() throws IOException {
+        Path file = Files.createTempFile("svod-" + rows + "-", ".xlsx");
+        write(file);
+        return file;
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        // close() удаляет и временные файлы строк SXSSF
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(200)) {
+            Sheet sheet = workbook.createSheet("СВОД");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+            writeHeader(sheet);
+            Random random = new Random(seed);
+            int rowNum = 2;
+            for (List<Integer> number : numbers()) {
+                boolean invalid = random.nextDouble() < errorRatio;
+                String kind = invalid ? errorKind(ERROR_KINDS[random.nextInt(ERROR_KINDS.length)], number.size()) : null;
+                writeRow(sheet.createRow(rowNum++), number, kind, random, dateStyle);
+            }
+            workbook.write(out);
+        }
+    }
+
+    // Ошибка должна срабатывать для структуры строки и не портить потомков: номер меняется только у листьев,
+    // иначе их дети получили бы "нет_родителя". Неподходящий вид заменяется ошибкой дивизиона.
+    private static String errorKind(String kind, int depth) {
+        boolean applicable = switch (kind) {
+            case "deadline" -> depth >= 3;
+            case "coordinator" -> depth >= 3 && depth < STRUCTURES.length;
+            case "number", "parent" -> depth == STRUCTURES.length;
+            default -> true;
+        };
+        return applicable ? kind : "division";
+    }
+
+    // Номера в порядке обхода дерева в глубину; на нижнем уровне дерево расширяется до нужного числа строк
+    List<List<Integer>> numbers() {
+        List<List<Integer>> result = new ArrayList<>(rows);
+        for (int root = 1; result.size() < rows; root++) {
+            List<Integer> number = new ArrayList<>();
+            number.add(root);
+            addSubtree(number, result);
+        }
+        return result;
+    }
+
+    private void addSubtree(List<Integer> number, List<List<Integer>> result) {
+        if (result.size() >= rows) {
+            return;
+        }
+        result.add(List.copyOf(number));
+        int depth = number.size();
+        if (depth >= STRUCTURES.length) {
+            return;
+        }
+        for (int child = 1; child <= FAN_OUT[depth] && result.size() < rows; child++) {
+            number.add(child);
+            addSubtree(number, result);
+            number.remove(number.size() - 1);
+        }
+    }
+
+    private static void writeHeader(Sheet sheet) {
+        String[] titles = {"Номер", "Структура", "Уровень", "Цель", "Срок начала", "Срок исполнения",
+                "Координатор", "Дивизионы", "Владелец", "Соисполнители", "Доп. ответственные", "Бизнес"};
+        Row title = sheet.createRow(0);
+        title.createCell(0).setCellValue("СВОД целевых показателей");
+        Row header = sheet.createRow(1);
+        for (int i = 0; i < titles.length; i++) {
+            header.createCell(i).setCellValue(titles[i]);
+        }
+    }
+
+    private static void writeRow(Row row, List<Integer> numberParts, String errorKind, Random random,
+                                 CellStyle dateStyle) {
+        int depth = numberParts.size();
+        String structure = STRUCTURES[depth - 1];
+        String number = toNumber(numberParts);
+        LocalDate start = BASE_DATE.plusDays(random.nextInt(365));
+        LocalDate end = start.plusDays(1 + random.nextInt(700));
+        String coordinator = login(random);
+        String divisions = divisions(random);
+        String owner = login(random);
+        String responsibles = login(random) + "; " + login(random);
+
+        if (errorKind != null) {
+            switch (errorKind) {
+                case "owner" -> owner = login(random) + ";" + login(random);
+                case "division" -> divisions = divisions + "; НЕТ_ТАКОГО";
+                case "deadline" -> end = start.minusDays(1 + random.nextInt(30));
+                case "coordinator" -> coordinator = "ivanov@example.com";
+                case "number" -> number = number + "x.";
+                case "structure" -> structure = "Проект";
+                case "responsibles" -> responsibles = responsibles + ", petrov";
+                case "parent" -> number = toNumber(numberParts) + "99.1.";
+                default -> throw new IllegalStateException(errorKind);
+            }
+        }
+
+        row.createCell(0).setCellValue(number);
+        row.createCell(1).setCellValue(structure);
+        row.createCell(2).setCellValue(depth == 1 ? "Р" : String.valueOf(Math.min(depth - 1, 3)));
+        row.createCell(3).setCellValue("Цель " + number + ": " + goalText(random));
+        if (depth > 1) {
+            row.createCell(4).setCellValue(start);
+            row.getCell(4).setCellStyle(dateStyle);
+            row.createCell(5).setCellValue(end);
+            row.getCell(5).setCellStyle(dateStyle);
+        }
+        row.createCell(6).setCellValue(coordinator);
+        row.createCell(7).setCellValue(divisions);
+        row.createCell(8).setCellValue(owner);
+        row.createCell(9).setCellValue(responsibles);
+        if (random.nextInt(4) == 0) {
+            row.createCell(10).setCellValue(login(random));
+        }
+        row.createCell(11).setCellValue(random.nextBoolean() ? "Добыча" : "Переработка");
+    }
+
+    private static String toNumber(List<Integer> parts) {
+        StringBuilder number = new StringBuilder();
+        for (Integer part : parts) {
+            number.append(part).append('.');
+        }
+        return number.toString();
+    }
+
+    private static String login(Random random) {
+        return "GAZ\\user" + random.nextInt(5000);
+    }
+
+    private static String divisions(Random random) {
+        int first = random.nextInt(DIVISIONS.length);
+        if (random.nextInt(3) > 0) {
+            return DIVISIONS[first];
+        }
+        return DIVISIONS[first] + "; " + DIVISIONS[(first + 1 + random.nextInt(DIVISIONS.length - 1)) % DIVISIONS.length];
+    }
+
+    private static String goalText(Random random) {
+        String[] words = {"снижение", "затрат", "рост", "выручки", "повышение", "надёжности", "оборудования",
+                "сокращение", "сроков", "поставки", "цифровизация", "процессов", "безопасность", "персонала"};
+        StringBuilder text = new StringBuilder();
+        int count = 4 + random.nextInt(12);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    public int getRows() { return rows; }
+    public double getErrorRatio() { return errorRatio; }
+    public long getSeed() { return seed; }
+}
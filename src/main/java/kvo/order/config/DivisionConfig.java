@@ -9,31 +9,53 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class DivisionConfig {
     private static final Logger logger = LoggerFactory.getLogger(DivisionConfig.class);
 
-    private final List<TargetIndicator.Division> divisions = new CopyOnWriteArrayList<>();
+    private final AtomicReference<DivisionRegistry> registry = new AtomicReference<>(new DivisionRegistry(List.of(), 0));
     private static final String SETTINGS_FILE = Paths.get( "setting.properties").toString();
+    // Отметка файла (время изменения + размер) при последней загрузке
+    private volatile String loadedStamp;
+    // Чтение файла под блокировкой: ReentrantLock не закрепляет виртуальный поток планировщика за носителем
+    private final ReentrantLock loadLock = new ReentrantLock();
 
 
     // Инициализация при старте
     public DivisionConfig() {
-        loadDivisions();
+        loadDivisions(fileStamp());
     }
 
-    // Метод для получения текущего списка дивизионов
+    // Метод для получения текущего списка дивизионов (неизменяемый, копия не нужна)
     public List<TargetIndicator.Division> getDivisions() {
-        return new ArrayList<>(divisions); // Возвращаем копию для потокобезопасности
+        return registry.get().getDivisions();
+    }
+
+    // Текущий снимок справочника; импорт берёт его один раз на весь файл
+    public DivisionRegistry getRegistry() {
+        return registry.get();
     }
 
     // Загрузка из файла
-    private synchronized void loadDivisions() {
+    private void loadDivisions(String stamp) {
+        loadLock.lock();
+        try {
+            readDivisions(stamp);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void readDivisions(String stamp) {
         List<TargetIndicator.Division> newDivisions = new ArrayList<>();
         logger.info("DIR setting: {}", SETTINGS_FILE);
         try (BufferedReader reader = new BufferedReader(new FileReader(SETTINGS_FILE))) {
@@ -58,15 +80,31 @@ public class DivisionConfig {
             newDivisions.add(new TargetIndicator.Division("EMPTY"));
             newDivisions.add(new TargetIndicator.Division("error"));
         }
-        divisions.clear();
-        divisions.addAll(newDivisions);
-        logger.info("Загружены дивизионы: {}", divisions);
+        DivisionRegistry current = registry.get();
+        if (!newDivisions.equals(current.getDivisions())) {
+            registry.set(new DivisionRegistry(newDivisions, current.getVersion() + 1));
+        }
+        loadedStamp = stamp;
+        logger.info("Загружены дивизионы: {}", registry.get().getDivisions());
     }
 
-    // Scheduled task: проверка каждые 15 минут
-    @Scheduled(fixedRate = 60000) // 300000  5 минут = 900 секунд * 1000
+    // Проверка изменения файла: читаем только атрибуты, файл перечитывается лишь при смене отметки
+    @Scheduled(fixedDelayString = "${app.divisions.check-interval:10000}")
     public void refreshDivisions() {
-        logger.info("Проверка обновлений в settings.properties...");
-        loadDivisions();
+        String stamp = fileStamp();
+        if (!stamp.equals(loadedStamp)) {
+            logger.info("Обнаружено изменение settings.properties, перечитываем...");
+            loadDivisions(stamp);
+        }
+    }
+
+    private static String fileStamp() {
+        Path path = Paths.get(SETTINGS_FILE);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (IOException e) {
+            return "missing";
+        }
     }
 }
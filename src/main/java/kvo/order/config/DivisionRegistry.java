@@ -0,0 +1,51 @@
+package kvo.order.config;
+
+import kvo.order.model.TargetIndicator;
+
+import java.util.*;
+
+// Неизменяемый справочник дивизионов: список в порядке настройки и хеш-индекс по имени.
+// DivisionConfig подменяет его целиком при перечитывании setting.properties.
+public class DivisionRegistry {
+    private final List<TargetIndicator.Division> divisions;
+    private final Map<String, TargetIndicator.Division> byName;
+    private final long version;
+
+    public DivisionRegistry(List<TargetIndicator.Division> divisions, long version) {
+        this.divisions = List.copyOf(divisions);
+        Map<String, TargetIndicator.Division> index = new HashMap<>();
+        for (TargetIndicator.Division division : this.divisions) {
+            index.putIfAbsent(division.getDisplayName(), division);
+        }
+        this.byName = Map.copyOf(index);
+        this.version = version;
+    }
+
+    public List<TargetIndicator.Division> getDivisions() { return divisions; }
+
+    // Номер версии справочника, растёт при каждом перечитывании с изменениями
+    public long getVersion() { return version; }
+
+    public Optional<TargetIndicator.Division> find(String displayName) {
+        if (displayName == null || displayName.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byName.get(displayName.trim()));
+    }
+
+    // То же, что TargetIndicator.Division.fromStringList, но поиск по хеш-индексу
+    public List<TargetIndicator.Division> parse(String divisionsString) {
+        if (divisionsString == null || divisionsString.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TargetIndicator.Division> result = new ArrayList<>();
+        for (String part : divisionsString.split("[\\s;]+")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty()) {
+                TargetIndicator.Division division = byName.get(trimmed);
+                result.add(division != null ? division : new TargetIndicator.Division("error"));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package kvo.order.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ImportExecutorConfig {
+    private static final Logger log = LoggerFactory.getLogger(ImportExecutorConfig.class);
+
+    // Пул для проверки строк импорта (CPU-задачи): по умолчанию по потоку на ядро.
+    // Остаётся на обычных потоках и в режиме виртуальных потоков - блокирующих вызовов в нём нет
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importValidationExecutor(@Value("${app.import.validation-threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreads("import-validate-"));
+    }
+
+    // Пул фоновых заданий импорта: ограничен и по потокам, и по очереди - при переполнении задание отклоняется.
+    // При spring.threads.virtual.enabled=true (JDK 21+) задания выполняются на виртуальных потоках:
+    // чтение файла и JDBC не занимают потоки ОС, ограничения по числу и очереди те же
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importJobExecutor(@Value("${app.import.jobs.threads:1}") int threads,
+                                             @Value("${app.import.jobs.queue-capacity:10}") int queueCapacity,
+                                             Environment environment) {
+        int size = Math.max(1, threads);
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Фоновый импорт на виртуальных потоках");
+            threadFactory = new VirtualThreadTaskExecutor("import-job-").getVirtualThreadFactory();
+        } else {
+            threadFactory = namedThreads("import-job-");
+        }
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory);
+    }
+
+    // Пул пакетного импорта (/upload/batch): книги пакета импортируются параллельно, не больше threads сразу.
+    // Очередь не ограничена: размер пакета ограничен app.import.batch.max-files, а общее число
+    // одновременных импортов - HeavyOperationLimiter
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importBatchExecutor(@Value("${app.import.batch.threads:2}") int threads) {
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreads("import-batch-"));
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
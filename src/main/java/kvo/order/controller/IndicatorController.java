@@ -4,19 +4,43 @@ import kvo.order.model.ErrorIndicator;
 import kvo.order.model.TargetIndicator;
 import kvo.order.config.DivisionConfig;
 import kvo.order.repository.ErrorIndicatorRepository;
+import kvo.order.repository.ErrorListItem;
+import kvo.order.repository.IndicatorListItem;
+import kvo.order.service.ColumnarLayout;
+import kvo.order.service.HeavyOperationLimiter;
+import kvo.order.service.ImportBatchResult;
+import kvo.order.service.ImportBatchService;
+import kvo.order.service.ImportJob;
+import kvo.order.service.ImportJobService;
+import kvo.order.service.ImportOptions;
+import kvo.order.service.ImportResult;
+import kvo.order.service.KeysetPage;
+import kvo.order.service.TransferResult;
 import kvo.order.service.IndicatorService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -26,18 +50,49 @@ import org.slf4j.LoggerFactory;
 @RequestMapping("/api/order") // Базовый путь для API
 public class IndicatorController {
     private static final Logger logger = LoggerFactory.getLogger(IndicatorController.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_LIMIT = 200;
+    // Строк на окно страницы order: первое рендерится сразу, следующие - при прокрутке
+    private static final int PAGE_WINDOW = 100;
+    private static final String CONFLICT_MESSAGE = "Строка уже изменена другим пользователем, обновите данные";
 
     @Autowired
     private IndicatorService service;
+    @Value("${server.compression.enabled:false}")
+    private boolean compressionEnabled;
     @Autowired
     private DivisionConfig divisionConfig;
-    // JSON API endpoint для получения всех данных
+    @Autowired
+    private ImportJobService importJobService;
+    @Autowired
+    private ColumnarLayout columnarLayout;
+    @Autowired
+    private ImportBatchService importBatchService;
+    // JSON API endpoint для получения всех данных.
+    // view=list - строки списка с превью goal/responsibles вместо полного текста (полный - /data/indicators/{id})
+    // layout=columns - колоночный вид: имена полей один раз, значения массивами (см. ColumnarLayout)
+    // Формат по Accept: application/json, application/x-jackson-smile или application/cbor; сжатие - server.compression.
+    // ETag - версия данных: пока данные не менялись, ответ 304 без сборки тела
     @GetMapping("/data")
     @ResponseBody
-    public Map<String, Object> getData() {
+    public Map<String, Object> getData(@RequestParam(defaultValue = "full") String view,
+                                       @RequestParam(defaultValue = "rows") String layout,
+                                       ServletWebRequest request) {
+        boolean list = "list".equalsIgnoreCase(view);
+        boolean columns = "columns".equalsIgnoreCase(layout);
+        request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String representation = (list ? "data-list" : "data") + (columns ? "-columns" : "") + "-" + wireFormat(request);
+        if (notModified(request, representation, true)) {
+            return null;
+        }
         Map<String, Object> data = new HashMap<>();
-        data.put("indicators", service.getAllIndicators());
-        data.put("errors", service.getAllErrors());
+        if (list) {
+            data.put("indicators", rows(service.getIndicatorList(), IndicatorListItem.class, columns));
+            data.put("errors", rows(service.getErrorList(), ErrorListItem.class, columns));
+        } else {
+            data.put("indicators", rows(service.getAllIndicators(), TargetIndicator.class, columns));
+            data.put("errors", rows(service.getAllErrors(), ErrorIndicator.class, columns));
+        }
         data.put("structures", TargetIndicator.Structure.values());
         // Изменено: Вместо enum Division используем список строк из DivisionConfig (предполагаем, что DivisionConfig.getDivisions() возвращает List<String>)
         // Если DivisionConfig не имеет такого метода, замените на Arrays.asList("Дивизион1", "Дивизион2", ...) или добавьте логику
@@ -45,53 +100,311 @@ public class IndicatorController {
         return data;
     }
 
-    // Обрабатываем два пути: корневой /order и /api/order
+    private Object rows(List<?> rows, Class<?> type, boolean columns) {
+        return columns ? columnarLayout.toColumns(rows, type) : rows;
+    }
+
+    // Формат тела по Accept - для ETag: у разных кодировок одного снимка разные теги
+    private static String wireFormat(ServletWebRequest request) {
+        String accept = Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "");
+        if (accept.contains("smile")) {
+            return "smile";
+        }
+        return accept.contains("cbor") ? "cbor" : "json";
+    }
+
+    // Постраничная выдача индикаторов (keyset по порядку номеров): ?size=&cursor=&division=
+    @GetMapping("/data/indicators")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getIndicatorPage(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "100") int size,
+                                                                @RequestParam(required = false) List<String> division) {
+        try {
+            return ResponseEntity.ok(pageResponse(service.getIndicatorPage(cursor, clampPageSize(size), division)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Постраничная выдача ошибок (keyset по id): ?size=&cursor=&division=
+    @GetMapping("/data/errors")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getErrorPage(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "100") int size,
+                                                            @RequestParam(required = false) List<String> division) {
+        try {
+            return ResponseEntity.ok(pageResponse(service.getErrorPage(cursor, clampPageSize(size), division)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Полный индикатор по id (строки списков содержат только превью длинных полей)
+    @GetMapping("/data/indicators/{id}")
+    @ResponseBody
+    public ResponseEntity<TargetIndicator> getIndicator(@PathVariable Long id) {
+        TargetIndicator indicator = service.findIndicator(id);
+        return indicator == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(indicator);
+    }
+
+    // Полная строка ошибки по id
+    @GetMapping("/data/errors/{id}")
+    @ResponseBody
+    public ResponseEntity<ErrorIndicator> getError(@PathVariable Long id) {
+        ErrorIndicator error = service.findError(id);
+        return error == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(error);
+    }
+
+    // Поддерево индикатора по номеру: ?number=1.2.
+    @GetMapping("/data/subtree")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getSubtree(@RequestParam String number) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("items", service.getSubtree(number));
+            return ResponseEntity.ok(data);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Состояние снимка чтения: версия, возраст, время последней пересборки
+    @GetMapping("/snapshot")
+    @ResponseBody
+    public Map<String, Object> getSnapshotStatus() {
+        return service.getSnapshotStatus();
+    }
+
+    // Дерево номеров из памяти: прямые потомки узла (без number - верхний уровень)
+    @GetMapping("/hierarchy/children")
+    @ResponseBody
+    public List<Map<String, Object>> getHierarchyChildren(@RequestParam(required = false) String number) {
+        return service.getHierarchyChildren(number);
+    }
+
+    // Поддерево узла целиком (номера, id, структура, статус)
+    @GetMapping("/hierarchy/subtree")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getHierarchySubtree(@RequestParam(required = false) String number) {
+        Map<String, Object> subtree = service.getHierarchySubtree(number);
+        return subtree == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(subtree);
+    }
+
+    // Сводка по узлу: число потомков с разбивкой по структуре и статусу
+    @GetMapping("/hierarchy/rollup")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getHierarchyRollup(@RequestParam(required = false) String number) {
+        Map<String, Object> rollup = service.getHierarchyRollup(number);
+        return rollup == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(rollup);
+    }
+
+    // Полнотекстовый поиск по цели, владельцу, координатору, ответственным и бизнесу: ?q=&limit=
+    // Слова запроса ищутся целиком и как начало слова ("энерг" найдёт "энергетика"), все слова обязательны.
+    // truncated=true в ответе - слишком короткий префикс раскрыт не во все слова, total и items неполные
+    @GetMapping("/search")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(service.searchIndicators(q, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private Map<String, Object> pageResponse(KeysetPage<?> page) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("items", page.getItems());
+        data.put("nextCursor", page.getNextCursor());
+        data.put("hasMore", page.isHasMore());
+        return data;
+    }
+
+    // Обрабатываем два пути: корневой /order и /api/order.
+    // На сервере рендерится только первое окно строк обеих таблиц (keyset в порядке номеров / id),
+    // остальные подгружаются фрагментами /fragments/* при прокрутке - время ответа не зависит от объёма данных.
+    // ?division= - фильтр по дивизионам, применяется на сервере и передаётся в запросы фрагментов
     @GetMapping({"", "/", "/order"})
-    public String showOrderPage(Model model) {
-        logger.info("Indicators size: {}", service.getAllIndicators().size());
-        logger.info("Errors size: {}", service.getAllErrors().size());
-
-        List<ErrorIndicator> indicators_err = service.getAllErrors();
-        indicators_err = indicators_err.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        List<TargetIndicator> indicators_ind = service.getAllIndicators();
-        model.addAttribute("indicators", indicators_ind);
-        model.addAttribute("errors", indicators_err);
+    public String showOrderPage(@RequestParam(required = false) List<String> division, Model model,
+                                ServletWebRequest request) {
+        if (notModified(request, "page-" + divisionTag(division), true)) {
+            return null;
+        }
+        KeysetPage<IndicatorListItem> indicators = service.getIndicatorPage(null, PAGE_WINDOW, division);
+        KeysetPage<ErrorListItem> errors = service.getErrorPage(null, PAGE_WINDOW, division);
+        logger.info("Indicators window: {}, errors window: {}", indicators.getItems().size(), errors.getItems().size());
+
+        model.addAttribute("indicators", indicators);
+        model.addAttribute("errors", errors);
+        model.addAttribute("selectedDivisions", division == null ? List.of() : division);
+        addDictionaries(model);
+        return "order";
+    }
+
+    // Следующее окно строк таблицы индикаторов (фрагмент order :: indicatorRows); без cursor - первое окно
+    @GetMapping("/fragments/indicators")
+    public String getIndicatorRows(@RequestParam(required = false) String cursor,
+                                   @RequestParam(required = false) List<String> division, Model model) {
+        try {
+            model.addAttribute("indicators", service.getIndicatorPage(cursor, PAGE_WINDOW, division));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        addDictionaries(model);
+        return "order :: indicatorRows";
+    }
+
+    // Следующее окно строк таблицы ошибок (фрагмент order :: errorRows)
+    @GetMapping("/fragments/errors")
+    public String getErrorRows(@RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) List<String> division, Model model) {
+        try {
+            model.addAttribute("errors", service.getErrorPage(cursor, PAGE_WINDOW, division));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        addDictionaries(model);
+        return "order :: errorRows";
+    }
+
+    // Справочники для выпадающих списков строк
+    private void addDictionaries(Model model) {
         model.addAttribute("structures", TargetIndicator.Structure.values());
         // Изменено: Вместо enum Division используем список строк из DivisionConfig
         model.addAttribute("divisions", divisionConfig.getDivisions());
-        return "order";
+        model.addAttribute("hierarchyChecks", service.isHierarchyChecks(ImportOptions.APPEND));
     }
 
-    // JSON API для загрузки файла
+    // JSON API для загрузки файла. async=true - импорт в фоне: сразу возвращается jobId (202),
+    // ход выполнения - /import-jobs/{jobId} и /import-jobs/{jobId}/events.
+    // mode=append (по умолчанию) | upsert - обновление по номерам; missing=keep|mark|delete - строки, которых нет в файле;
+    // hierarchyChecks=true - строки с повторным номером или без родителя уходят в ошибки (по умолчанию app.import.hierarchy-checks)
     @PostMapping("/upload")
     @ResponseBody
-    public Map<String, Object> uploadFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadFile(@RequestParam("file") MultipartFile file,
+                                                          @RequestParam(defaultValue = "false") boolean async,
+                                                          @RequestParam(required = false) String mode,
+                                                          @RequestParam(required = false) String missing,
+                                                          @RequestParam(required = false) Boolean hierarchyChecks) {
         Map<String, Object> response = new HashMap<>();
         try {
             if (!file.getOriginalFilename().endsWith(".xlsx")) {
                 response.put("success", false);
                 response.put("message", "Only .xlsx files are allowed!");
-                return response;
+                return ResponseEntity.ok(response);
+            }
+            ImportOptions options = ImportOptions.of(mode, missing, hierarchyChecks);
+            if (async) {
+                return submitImportJob(file, options);
             }
 
-            boolean isCorrectXLS = service.importFromXls(file);
-            if (isCorrectXLS) {
+            ImportResult result = service.importWorkbook(file, options);
+            if (result.isSuccess()) {
                 response.put("success", true);
                 response.put("message", "File uploaded successfully!");
+                response.put("validRows", result.getValidRows());
+                response.put("errorRows", result.getErrorRows());
+                response.put("durationMs", result.getDurationMs());
+                response.put("rowsPerSecond", Math.round(result.getRowsPerSecond()));
+                response.put("inserted", result.getInserted());
+                response.put("updated", result.getUpdated());
+                response.put("unchanged", result.getUnchanged());
+                response.put("marked", result.getMarked());
+                response.put("removed", result.getRemoved());
             } else {
                 response.put("success", false);
                 response.put("message", "Error structure file (СВОД лист, пустые строки...)");
             }
+        } catch (RejectedExecutionException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception e) {
             logger.error("Error during file upload: ", e);
             String errorMessage = e.getMessage() != null ? e.getMessage() : "Неизвестная ошибка при обработке файла";
             response.put("success", false);
             response.put("message", "Error uploading file: " + errorMessage);
         }
-        return response;
+        return ResponseEntity.ok(response);
+    }
+
+    // Пакетная загрузка: несколько .xlsx (повторяющийся параметр files) и/или ZIP с книгами.
+    // Книги импортируются параллельно (mode=upsert - по очереди), каждая отдельно; в ответе - итог по каждой книге
+    // и общие счётчики.
+    // mode и hierarchyChecks - как в /upload; missing поддерживается только keep.
+    // Книга с ошибкой на середине импорта может остаться загруженной частично (partial в итоге книги)
+    @PostMapping("/upload/batch")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> uploadBatch(@RequestParam("files") List<MultipartFile> files,
+                                                           @RequestParam(required = false) String mode,
+                                                           @RequestParam(required = false) String missing,
+                                                           @RequestParam(required = false) Boolean hierarchyChecks) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ImportBatchResult result = importBatchService.importFiles(files,
+                    ImportOptions.of(mode, missing, hierarchyChecks));
+            response.put("success", true);
+            response.put("files", result.getFiles());
+            response.put("fileCount", result.getFiles().size());
+            response.put("failedFiles", result.getFailedFiles());
+            response.put("validRows", result.getValidRows());
+            response.put("errorRows", result.getErrorRows());
+            response.put("durationMs", result.getDurationMs());
+            response.put("importMs", result.getImportMs());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error during batch upload: ", e);
+            String errorMessage = e.getMessage() != null ? e.getMessage() : "Неизвестная ошибка при обработке файлов";
+            response.put("success", false);
+            response.put("message", "Error uploading files: " + errorMessage);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> submitImportJob(MultipartFile file, ImportOptions options) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ImportJob job = importJobService.submit(file, options);
+            response.put("success", true);
+            response.put("message", "File accepted for import");
+            response.put("jobId", job.getId());
+            response.put("statusUrl", "/api/order/import-jobs/" + job.getId());
+            response.put("eventsUrl", "/api/order/import-jobs/" + job.getId() + "/events");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (RejectedExecutionException e) {
+            response.put("success", false);
+            response.put("message", "Очередь импорта заполнена, повторите позже");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    // Состояние фоновых заданий импорта
+    @GetMapping("/import-jobs")
+    @ResponseBody
+    public List<Map<String, Object>> getImportJobs() {
+        return importJobService.list();
+    }
+
+    @GetMapping("/import-jobs/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getImportJob(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> ResponseEntity.ok(job.status()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("success", false, "message", "Задание импорта не найдено: " + id)));
+    }
+
+    // Поток событий задания (text/event-stream): "progress" после каждой пачки строк, "done" с итогом
+    @GetMapping(value = "/import-jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getImportJobEvents(@PathVariable String id) {
+        return importJobService.find(id)
+                .map(job -> ResponseEntity.ok(importJobService.events(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     // JSON API для переноса ошибок
@@ -107,9 +420,15 @@ public class IndicatorController {
         }
 
         try {
-            service.transferErrors(errorIds);
-            response.put("success", true);
-            response.put("message", "Ошибки успешно перенесены в основной экран.");
+            TransferResult result = service.transferErrors(errorIds);
+            response.put("success", result.getTransferred() > 0);
+            response.put("transferred", result.getTransferred());
+            response.put("notFound", result.getNotFound());
+            if (result.getNotFound().isEmpty()) {
+                response.put("message", "Ошибки успешно перенесены в основной экран.");
+            } else {
+                response.put("message", "Перенесено: " + result.getTransferred() + ", не найдены ID: " + result.getNotFound());
+            }
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Произошла ошибка при переносе: " + e.getMessage());
@@ -123,56 +442,20 @@ public class IndicatorController {
     public Map<String, Object> updateIndicator(@PathVariable Long id, @RequestBody Map<String, String> data) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Optional<TargetIndicator> optionalIndicator = Optional.ofNullable(service.getIndicatorById(id));
-
-            if (optionalIndicator.isPresent()) {
-                TargetIndicator indicator = optionalIndicator.get();
-
-                // Обновляем поля из data
-                if (data.containsKey("number")) {
-                    indicator.setNumber(data.get("number"));
-                }
-                if (data.containsKey("structure")) {
-                    indicator.setStructure(TargetIndicator.Structure.valueOf(data.get("structure")));
-                }
-                if (data.containsKey("level")) {
-                    indicator.setLevel(data.get("level"));
-                }
-                if (data.containsKey("goal")) {
-                    indicator.setGoal(data.get("goal"));
-                }
-                if (data.containsKey("deadline")) {
-                    indicator.setDeadline(data.get("deadline"));
-                }
-                if (data.containsKey("deadlineend")) {
-                    indicator.setDeadlineEnd(data.get("deadlineend"));
-                }
-                if (data.containsKey("coordinator")) {
-                    indicator.setCoordinator(data.get("coordinator"));
-                }
-                if (data.containsKey("divisions")) {
-                    indicator.setDivisions(data.get("divisions"));  // Уже String — корректно
-                }
-                if (data.containsKey("owner")) {
-                    indicator.setOwner(data.get("owner"));
-                }
-                if (data.containsKey("responsibles")) {
-                    indicator.setResponsibles(data.get("responsibles"));
-                }
-                if (data.containsKey("additionalResponsibles")) {
-                    indicator.setAdditionalResponsibles(data.get("additionalResponsibles"));
-                }
-                if (data.containsKey("business")) {
-                    indicator.setBusiness(data.get("business"));
-                }
-
-                service.saveIndicator(indicator);
-                response.put("success", true);
-                response.put("message", "Indicator updated successfully");
-            } else {
-                response.put("success", false);
-                response.put("message", "Indicator not found");
+            Map<String, String> values = new LinkedHashMap<>(data);
+            Long version = parseVersion(values.remove("version"));
+            if (values.containsKey("deadlineend")) { // прежнее имя поля
+                values.put("deadlineEnd", values.remove("deadlineend"));
             }
+            service.updateIndicator(id, version, values);
+            response.put("success", true);
+            response.put("message", "Indicator updated successfully");
+        } catch (NoSuchElementException e) {
+            response.put("success", false);
+            response.put("message", "Indicator not found");
+        } catch (OptimisticLockingFailureException e) {
+            response.put("success", false);
+            response.put("message", CONFLICT_MESSAGE);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -190,6 +473,9 @@ public class IndicatorController {
             service.updateError(id, error);  // Метод в сервисе обновлён для divisions как String и errorMessage
             response.put("success", true);
             response.put("message", "Error updated successfully");
+        } catch (OptimisticLockingFailureException e) {
+            response.put("success", false);
+            response.put("message", CONFLICT_MESSAGE);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", e.getMessage());
@@ -197,13 +483,104 @@ public class IndicatorController {
         return response;
     }
 
+    // Частичная правка индикатора: {"version": N, "owner": "..."} - меняются только переданные поля.
+    // version обязательна: если строку уже изменили, ответ 409 с текущей строкой в "current"
+    @PatchMapping("/data/indicators/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> patchIndicator(@PathVariable Long id,
+                                                              @RequestBody Map<String, String> data) {
+        return patch(data, (version, values) -> service.updateIndicator(id, version, values),
+                () -> service.findIndicator(id), "indicator");
+    }
+
+    // Частичная правка ошибки, правила те же
+    @PatchMapping("/data/errors/{id}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> patchError(@PathVariable Long id, @RequestBody Map<String, String> data) {
+        return patch(data, (version, values) -> service.updateError(id, version, values),
+                () -> service.findError(id), "error");
+    }
+
+    private ResponseEntity<Map<String, Object>> patch(Map<String, String> data,
+                                                      BiFunction<Long, Map<String, String>, Object> update,
+                                                      Supplier<Object> current, String name) {
+        try {
+            Map<String, String> values = new LinkedHashMap<>(data);
+            Long version = parseVersion(values.remove("version"));
+            if (version == null) {
+                throw new IllegalArgumentException("Не указана версия строки (version)");
+            }
+            Object saved = update.apply(version, values);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put(name, saved);
+            return ResponseEntity.ok(response);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "message", e.getMessage()));
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", CONFLICT_MESSAGE);
+            response.put("current", current.get());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    private static Long parseVersion(String version) {
+        if (version == null || version.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(version.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная версия: " + version);
+        }
+    }
+
+    // Файл пишется прямо в выходной поток ответа, скачивание начинается сразу
     @GetMapping("/export/{type}")
-    public ResponseEntity<byte[]> export(@PathVariable String type) throws IOException {
-        byte[] data = service.exportToXls(type);  // Экспорт в сервисе обновлён: заголовок "Error Message", divisions как String
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String type, ServletWebRequest request) {
+        if (notModified(request, "main".equals(type) ? "export-main" : "export-errors", false)) {
+            return null;
+        }
+        HeavyOperationLimiter.Permit permit;
+        try {
+            permit = service.reserveExport();
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        StreamingResponseBody body = out -> service.exportToXls(type, out, permit);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", "indicators.xlsx");
-        return ResponseEntity.ok().headers(headers).body(data);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    // Условный GET: ставит ETag версии данных и сверяет его с If-None-Match.
+    // true - клиент уже имеет актуальную версию, ответ 304 выставлен, БД и POI не трогаются.
+    // no-cache - браузер хранит ответ, но перепроверяет его при каждом запросе.
+    // compressible - тип ответа из server.compression.mime-types. Тег слабый, только если ответ может быть сжат:
+    // Tomcat не сжимает ответ с сильным ETag (gzip меняет байты тела). Без gzip у клиента тег сильный
+    private boolean notModified(ServletWebRequest request, String representation, boolean compressible) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        String tag = "\"" + service.getDataTag(representation) + "\"";
+        boolean weak = false;
+        if (compressible && compressionEnabled) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            weak = Objects.toString(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "").contains("gzip");
+        }
+        return request.checkNotModified(weak ? "W/" + tag : tag);
+    }
+
+    // Фильтр дивизионов в ETag страницы: сами значения (base64url), а не хэш - у разных фильтров разные теги
+    private static String divisionTag(List<String> division) {
+        if (division == null || division.isEmpty()) {
+            return "all";
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join("\n", division).getBytes(StandardCharsets.UTF_8));
     }
 
     @GetMapping("/errors")
@@ -243,6 +620,50 @@ public class IndicatorController {
         return response;
     }
 
+    // Удаление индикаторов по условиям без загрузки сущностей: ?status=&structure=&division= (хотя бы одно)
+    @DeleteMapping("/data/indicators")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> deleteIndicators(@RequestParam(required = false) String status,
+                                                                @RequestParam(required = false) String structure,
+                                                                @RequestParam(required = false) String division) {
+        try {
+            int deleted = service.deleteIndicators(blankToNull(status), parseStructure(structure), blankToNull(division));
+            return ResponseEntity.ok(Map.of("success", true, "deleted", deleted, "message", "Удалено индикаторов: " + deleted));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    // Удаление ошибок по условиям без загрузки сущностей: ?structure=&division= (хотя бы одно)
+    @DeleteMapping("/data/errors")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> deleteErrors(@RequestParam(required = false) String structure,
+                                                            @RequestParam(required = false) String division) {
+        try {
+            int deleted = service.deleteErrors(parseStructure(structure), blankToNull(division));
+            return ResponseEntity.ok(Map.of("success", true, "deleted", deleted, "message", "Удалено ошибок: " + deleted));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Структура по имени константы (ЦЕЛЬ, ЗАДАЧА, ..., error)
+    private static TargetIndicator.Structure parseStructure(String structure) {
+        if (structure == null || structure.isBlank()) {
+            return null;
+        }
+        for (TargetIndicator.Structure value : TargetIndicator.Structure.values()) {
+            if (value.name().equalsIgnoreCase(structure.trim())) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная структура: " + structure);
+    }
+
     @GetMapping("/help")
     public String help() {
         System.out.println("'/' - мониторинг сервисов серверов; \n'/export' - экспорт данных в TXT формате; \n'/status - просмотр данных в JSON формате.\n");
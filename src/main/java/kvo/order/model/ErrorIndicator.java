@@ -1,14 +1,24 @@
 package kvo.order.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
+// UPDATE только изменённых колонок (см. TargetIndicator)
+@DynamicUpdate
 public class ErrorIndicator {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence с pooled-оптимизатором: id выдаются пачками, Hibernate может батчить INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "error_indicator_seq")
+    @SequenceGenerator(name = "error_indicator_seq", sequenceName = "error_indicator_seq", allocationSize = 50)
     private Long id;
     private String number;
     @Enumerated(EnumType.STRING)
@@ -17,11 +27,25 @@ public class ErrorIndicator {
     @Lob
     @Column(length = 10000)
     private String goal;
+    // Превью для списков (см. TargetIndicator.previewOf)
+    @Column(length = TargetIndicator.PREVIEW_LENGTH + 1)
+    private String goalPreview;
+    @Column(length = TargetIndicator.PREVIEW_LENGTH + 1)
+    private String responsiblesPreview;
     private String deadline;
     private String deadlineEnd;
     private String coordinator;
     // Изменяем на String для хранения нескольких значений
     private String divisions;
+    // Дивизионы отдельной индексируемой таблицей (см. TargetIndicator.divisionSet)
+    @ElementCollection
+    @CollectionTable(name = "error_indicator_division", joinColumns = @JoinColumn(name = "error_id"),
+            indexes = @Index(name = "idx_error_indicator_division", columnList = "division, error_id"),
+            foreignKey = @ForeignKey(name = "fk_error_indicator_division", foreignKeyDefinition =
+                    "foreign key (error_id) references error_indicator (id) on delete cascade"))
+    @Column(name = "division", nullable = false)
+    @BatchSize(size = 500)
+    private Set<String> divisionSet = new HashSet<>();
     private String owner;
     @Lob
     @Column(length = 10000)
@@ -29,9 +53,21 @@ public class ErrorIndicator {
     private String additionalResponsibles;
     private String business;
     private String errorMessage;  // Переименовано с errorReason на errorMessage
+    // Версия строки для оптимистической блокировки (см. TargetIndicator.version)
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void updateDerivedFields() {
+        this.goalPreview = TargetIndicator.previewOf(goal);
+        this.responsiblesPreview = TargetIndicator.previewOf(responsibles);
+    }
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getNumber() { return number; }
     public void setNumber(String number) { this.number = number; }
     public TargetIndicator.Structure getStructure() { return structure; }
@@ -40,6 +76,10 @@ public class ErrorIndicator {
     public void setLevel(String level) { this.level = level; }
     public String getGoal() { return goal; }
     public void setGoal(String goal) { this.goal = goal; }
+    @JsonIgnore
+    public String getGoalPreview() { return goalPreview; }
+    @JsonIgnore
+    public String getResponsiblesPreview() { return responsiblesPreview; }
     public String getDeadline() { return deadline; }
     public void setDeadline(String deadline) { this.deadline = deadline; }
     public String getDeadlineEnd() { return deadlineEnd; }
@@ -52,6 +92,11 @@ public class ErrorIndicator {
 
     public void setDivisions(String divisions) {
         this.divisions = divisions;
+        Set<String> names = TargetIndicator.divisionNames(divisions);
+        if (!divisionSet.equals(names)) {
+            divisionSet.clear();
+            divisionSet.addAll(names);
+        }
     }
 
     // Вспомогательный метод для получения списка дивизионов (как List<String>)
@@ -67,7 +112,7 @@ public class ErrorIndicator {
 
     // Вспомогательный метод для установки списка дивизионов (как List<String>)
     public void setDivisionList(List<String> divisions) {
-        this.divisions = String.join("; ", divisions);
+        setDivisions(String.join("; ", divisions));
     }
 
     // Старый геттер для обратной совместимости (теперь возвращает String)
@@ -81,9 +126,9 @@ public class ErrorIndicator {
     @Transient
     public void setDivision(String division) {
         if (division == null || division.trim().isEmpty()) {
-            this.divisions = "";
+            setDivisions("");
         } else {
-            this.divisions = division;
+            setDivisions(division);
         }
     }
     public String getOwner() { return owner; }
@@ -98,4 +143,27 @@ public class ErrorIndicator {
     public void setBusiness(String business) { this.business = business; }
     public String getErrorMessage() { return errorMessage; }  // Переименован геттер
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }  // Переименован сеттер
+
+    // Отсоединённая копия для модели чтения (см. TargetIndicator.copy)
+    public ErrorIndicator copy() {
+        ErrorIndicator copy = new ErrorIndicator();
+        copy.id = id;
+        copy.number = number;
+        copy.structure = structure;
+        copy.level = level;
+        copy.goal = goal;
+        copy.goalPreview = goalPreview;
+        copy.responsiblesPreview = responsiblesPreview;
+        copy.deadline = deadline;
+        copy.deadlineEnd = deadlineEnd;
+        copy.coordinator = coordinator;
+        copy.setDivisions(divisions);
+        copy.owner = owner;
+        copy.responsibles = responsibles;
+        copy.additionalResponsibles = additionalResponsibles;
+        copy.business = business;
+        copy.errorMessage = errorMessage;
+        copy.version = version;
+        return copy;
+    }
 }
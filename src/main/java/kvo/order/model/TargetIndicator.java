@@ -1,27 +1,64 @@
 package kvo.order.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Entity
+// Индекс (sort_key, id): ORDER BY без сортировки в памяти, keyset-страницы и диапазон поддерева
+// Индекс number_key: импорт UPSERT сопоставляет строки файла с индикаторами по ключу номера
+@Table(indexes = {@Index(name = "idx_target_indicator_sort_key", columnList = "sortKey, id"),
+        @Index(name = "idx_target_indicator_number_key", columnList = "numberKey")})
+// UPDATE только изменённых колонок: правка владельца не переписывает LOB-поля
+@DynamicUpdate
 public class TargetIndicator {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence с pooled-оптимизатором: id выдаются пачками, Hibernate может батчить INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "target_indicator_seq")
+    @SequenceGenerator(name = "target_indicator_seq", sequenceName = "target_indicator_seq", allocationSize = 50)
     private Long id;
     private String number;
+    // Ключ иерархической сортировки, выводится из number (см. sortKeyOf)
+    @Column(nullable = false)
+    private String sortKey = "";
+    // Ключ номера без потерь (см. hierarchyKeyOf): sortKey склеивает "1.2." и "1.2.0." и ограничивает сегменты
+    @Column(nullable = false)
+    private String numberKey = "";
     @Enumerated(EnumType.STRING)
     private Structure structure;
     private String level;
     @Lob
     @Column(length = 10000)
     private String goal;
+    // Начало goal и responsibles для списков (см. previewOf): страницы читают их вместо LOB-колонок
+    @Column(length = PREVIEW_LENGTH + 1)
+    private String goalPreview;
+    @Column(length = PREVIEW_LENGTH + 1)
+    private String responsiblesPreview;
     private String deadline;
     private String deadlineEnd;
     private String coordinator;
     // Изменяем на String для хранения нескольких значений
     private String divisions; // Храним как "Группа,ДКА,Энергобизнес"
+    // Те же дивизионы по одному в строке таблицы (индекс division, indicator_id): отбор по дивизиону
+    // идёт индексным поиском, а не LIKE по строке divisions. Заполняется в setDivisions
+    @ElementCollection
+    @CollectionTable(name = "target_indicator_division", joinColumns = @JoinColumn(name = "indicator_id"),
+            indexes = @Index(name = "idx_target_indicator_division", columnList = "division, indicator_id"),
+            // ON DELETE CASCADE: удаление индикаторов одним SQL DELETE (TargetIndicatorRepository.deleteMatching)
+            foreignKey = @ForeignKey(name = "fk_target_indicator_division", foreignKeyDefinition =
+                    "foreign key (indicator_id) references target_indicator (id) on delete cascade"))
+    @Column(name = "division", nullable = false)
+    @BatchSize(size = 500)
+    private Set<String> divisionSet = new HashSet<>();
     private String owner;
     @Lob
     @Column(length = 10000)
@@ -29,6 +66,12 @@ public class TargetIndicator {
     private String additionalResponsibles;
     private String business;
     private String status = "valid";
+    // Версия строки (оптимистическая блокировка): UPDATE ... WHERE version = ?, устаревшая правка получает 409
+    @Version
+    private Long version;
+    // SHA-256 полей строки импорта (см. contentHashOf): повторный импорт пропускает неизменённые строки
+    @Column(length = 64)
+    private String contentHash;
 
     // Enum Structure остается без изменений
     public enum Structure {
@@ -153,8 +196,48 @@ public class TargetIndicator {
     // Getters and Setters (без изменений для большинства полей)
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getNumber() { return number; }
-    public void setNumber(String number) { this.number = number; }
+    public void setNumber(String number) {
+        this.number = number;
+        this.sortKey = sortKeyOf(number);
+        this.numberKey = hierarchyKeyOf(number);
+    }
+    @JsonIgnore
+    public String getSortKey() { return sortKey; }
+    @JsonIgnore
+    public String getNumberKey() { return numberKey; }
+
+    @JsonIgnore
+    public String getContentHash() { return contentHash; }
+
+    @JsonIgnore
+    public String getGoalPreview() { return goalPreview; }
+
+    @JsonIgnore
+    public String getResponsiblesPreview() { return responsiblesPreview; }
+
+    @PrePersist
+    @PreUpdate
+    void updateDerivedFields() {
+        this.sortKey = sortKeyOf(number);
+        this.numberKey = hierarchyKeyOf(number);
+        this.contentHash = contentHashOf(this);
+        this.goalPreview = previewOf(goal);
+        this.responsiblesPreview = previewOf(responsibles);
+    }
+
+    // Длина превью длинных полей в списках
+    public static final int PREVIEW_LENGTH = 200;
+
+    // Первые PREVIEW_LENGTH символов; обрезанный текст заканчивается многоточием (длина PREVIEW_LENGTH + 1)
+    public static String previewOf(String text) {
+        if (text == null || text.length() <= PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, PREVIEW_LENGTH) + "…";
+    }
     public Structure getStructure() { return structure; }
     public void setStructure(Structure structure) { this.structure = structure; }
     public String getLevel() { return level; }
@@ -173,6 +256,25 @@ public class TargetIndicator {
 
     public void setDivisions(String divisions) {
         this.divisions = divisions;
+        Set<String> names = divisionNames(divisions);
+        if (!divisionSet.equals(names)) {
+            divisionSet.clear();
+            divisionSet.addAll(names);
+        }
+    }
+
+    // Названия дивизионов из строки: "Группа, ДКА", "ДКА; ДАК" (разделители - запятая, точка с запятой, пробелы)
+    public static Set<String> divisionNames(String divisions) {
+        if (divisions == null || divisions.isBlank()) {
+            return Set.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : divisions.split("[,;\\s]+")) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
     }
 
     // Вспомогательный метод для получения списка дивизионов
@@ -183,7 +285,7 @@ public class TargetIndicator {
 
     // Вспомогательный метод для установки списка дивизионов
     public void setDivisionList(List<Division> divisions) {
-        this.divisions = Division.toString(divisions);
+        setDivisions(Division.toString(divisions));
     }
 
     // Старый геттер для обратной совместимости
@@ -197,9 +299,9 @@ public class TargetIndicator {
     @Transient
     public void setDivision(Division division) {
         if (division == null || division.getDisplayName().isEmpty()) {
-            this.divisions = "";
+            setDivisions("");
         } else {
-            this.divisions = division.getDisplayName();
+            setDivisions(division.getDisplayName());
         }
     }
 
@@ -217,8 +319,35 @@ public class TargetIndicator {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    // Отсоединённая копия для модели чтения. divisionSet строится из строки divisions,
+    // поэтому копирование не загружает ленивую коллекцию исходной сущности
+    public TargetIndicator copy() {
+        TargetIndicator copy = new TargetIndicator();
+        copy.id = id;
+        copy.number = number;
+        copy.sortKey = sortKey;
+        copy.numberKey = numberKey;
+        copy.structure = structure;
+        copy.level = level;
+        copy.goal = goal;
+        copy.goalPreview = goalPreview;
+        copy.responsiblesPreview = responsiblesPreview;
+        copy.deadline = deadline;
+        copy.deadlineEnd = deadlineEnd;
+        copy.coordinator = coordinator;
+        copy.setDivisions(divisions);
+        copy.owner = owner;
+        copy.responsibles = responsibles;
+        copy.additionalResponsibles = additionalResponsibles;
+        copy.business = business;
+        copy.status = status;
+        copy.version = version;
+        copy.contentHash = contentHash;
+        return copy;
+    }
+
     // Comparator for version sorting (без изменений)
-    public static Comparator<TargetIndicator> VERSION_COMPARATOR = Comparator.comparing(TargetIndicator::getNumber, (a, b) -> {
+    public static final Comparator<String> NUMBER_COMPARATOR = (a, b) -> {
         String[] aParts = a.split("\\.");
         String[] bParts = b.split("\\.");
         int len = Math.max(aParts.length, bParts.length);
@@ -238,5 +367,101 @@ public class TargetIndicator {
             if (aPart != bPart) return Integer.compare(aPart, bPart);
         }
         return 0;
+    };
+
+    // Хэш содержимого: все поля, приходящие из файла импорта (без id, статуса и производных ключей)
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     });
+
+    public static String contentHashOf(TargetIndicator indicator) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        for (String field : new String[]{indicator.number, indicator.structure == null ? null : indicator.structure.name(),
+                indicator.level, indicator.goal, indicator.deadline, indicator.deadlineEnd, indicator.divisions,
+                indicator.owner, indicator.coordinator, indicator.responsibles, indicator.additionalResponsibles,
+                indicator.business}) {
+            if (field == null) {
+                digest.update((byte) 0);
+            } else {
+                digest.update((byte) 1);
+                digest.update(field.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Ключ сортировки номера: каждый сегмент "1.2.10." - 6 цифр с ведущими нулями ("000001000002000010"),
+    // хвостовые нулевые сегменты отбрасываются. Строковый порядок ключей совпадает с NUMBER_COMPARATOR,
+    // а ключ родителя является префиксом ключей всех потомков.
+    public static final int SORT_KEY_SEGMENT_WIDTH = 6;
+
+    public static String sortKeyOf(String number) {
+        if (number == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        int keptLength = 0;
+        for (String part : number.split("\\.")) {
+            int value;
+            try {
+                value = Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+                value = 0;
+            }
+            value = Math.max(0, Math.min(value, 999_999));
+            String digits = Integer.toString(value);
+            for (int i = digits.length(); i < SORT_KEY_SEGMENT_WIDTH; i++) {
+                key.append('0');
+            }
+            key.append(digits);
+            if (value != 0) {
+                keptLength = key.length();
+            }
+        }
+        key.setLength(keptLength);
+        return key.toString();
+    }
+
+    // Ключ номера в дереве иерархии: сегменты без ведущих нулей через точку ("1.02.0." -> "1.2.0").
+    // В отличие от sortKeyOf сохраняет все сегменты, в т.ч. нулевые, и не ограничивает их величину,
+    // поэтому разные номера не получают один ключ. Ключ родителя - ключ без последнего сегмента.
+    // "" - номер пустой или с нечисловым сегментом
+    public static String hierarchyKeyOf(String number) {
+        if (number == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        String[] parts = number.split("\\.");
+        for (int p = 0; p < parts.length; p++) {
+            String part = parts[p].trim();
+            int start = 0;
+            for (int i = 0; i < part.length(); i++) {
+                char ch = part.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return "";
+                }
+                if (ch == '0' && start == i && i < part.length() - 1) {
+                    start++;
+                }
+            }
+            if (p > 0) {
+                key.append('.');
+            }
+            key.append(part, start, part.length());
+        }
+        return key.toString();
+    }
+
+    public static String parentHierarchyKeyOf(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot < 0 ? "" : key.substring(0, dot);
+    }
+
+    public static Comparator<TargetIndicator> VERSION_COMPARATOR = Comparator.comparing(TargetIndicator::getNumber, NUMBER_COMPARATOR);
 }
\ No newline at end of file
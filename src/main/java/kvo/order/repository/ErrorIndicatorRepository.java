@@ -3,9 +3,14 @@ package kvo.order.repository;
 
 import  kvo.order.model.ErrorIndicator;
 import kvo.order.model.TargetIndicator;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,12 +26,46 @@ public interface ErrorIndicatorRepository extends JpaRepository<ErrorIndicator,
     // Найти по причине ошибки
     List<ErrorIndicator> findByErrorMessageContaining(String reason);
 
-    // Найти по дивизиону
-    List<ErrorIndicator> findByDivisionsContaining(String division);
+    // Ошибки хотя бы одного из дивизионов: поиск по индексу error_indicator_division
+    @Query("select e from ErrorIndicator e where exists (select 1 from e.divisionSet d where d in :divisions) order by e.id")
+    List<ErrorIndicator> findByDivisionIn(@Param("divisions") Collection<String> divisions);
 
     // Проверить существование по номеру
     boolean existsByNumber(String number);
 
+    // Порция ошибок после заданного id (keyset-чтение)
+    List<ErrorIndicator> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Строки списка ошибок без LOB-колонок (см. TargetIndicatorRepository.LIST_ITEM)
+    String LIST_ITEM = "select new kvo.order.repository.ErrorListItem(e.id, e.number, e.structure, e.level,"
+            + " e.goalPreview, e.deadline, e.deadlineEnd, e.coordinator, e.divisions, e.owner, e.responsiblesPreview,"
+            + " e.additionalResponsibles, e.business, e.errorMessage, e.version) from ErrorIndicator e";
+
+    // Весь список ошибок в порядке id
+    @Query(LIST_ITEM + " order by e.id")
+    List<ErrorListItem> findListAll();
+
+    // Keyset-порция списка ошибок после заданного id
+    @Query(LIST_ITEM + " where e.id > :id order by e.id")
+    List<ErrorListItem> findListPageAfter(@Param("id") Long id, Pageable pageable);
+
+    // Keyset-порция списка ошибок хотя бы одного из дивизионов
+    @Query(LIST_ITEM + " where e.id > :id"
+            + " and exists (select 1 from e.divisionSet d where d in :divisions) order by e.id")
+    List<ErrorListItem> findListPageAfterInDivisions(@Param("id") Long id, @Param("divisions") Collection<String> divisions,
+                                                     Pageable pageable);
+
+    // Id ошибок с заданными номерами (замена ошибок при импорте в режиме UPSERT)
+    @Query("select e.id from ErrorIndicator e where e.number in :numbers")
+    List<Long> findIdsByNumberIn(@Param("numbers") Collection<String> numbers);
+
+    // Удаление ошибок по структуре и/или дивизиону одним DELETE (см. TargetIndicatorRepository.deleteMatching)
+    @Modifying
+    @Query(value = "delete from error_indicator e where (cast(:structure as varchar) is null or e.structure = :structure)"
+            + " and (cast(:division as varchar) is null or exists (select 1 from error_indicator_division d"
+            + " where d.error_id = e.id and d.division = :division))", nativeQuery = true)
+    int deleteMatching(@Param("structure") String structure, @Param("division") String division);
+
     // Удалить по номеру
     void deleteByNumber(String number);
 }
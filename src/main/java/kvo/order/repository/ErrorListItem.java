@@ -0,0 +1,63 @@
+package kvo.order.repository;
+
+import kvo.order.model.TargetIndicator;
+
+// Строка списка ошибок без LOB-полей (см. IndicatorListItem). Полная строка - GET /data/errors/{id}
+public class ErrorListItem {
+    private final Long id;
+    private final String number;
+    private final TargetIndicator.Structure structure;
+    private final String level;
+    private final String goalPreview;
+    private final String deadline;
+    private final String deadlineEnd;
+    private final String coordinator;
+    private final String divisions;
+    private final String owner;
+    private final String responsiblesPreview;
+    private final String additionalResponsibles;
+    private final String business;
+    private final String errorMessage;
+    private final Long version;
+
+    public ErrorListItem(Long id, String number, TargetIndicator.Structure structure, String level,
+                         String goalPreview, String deadline, String deadlineEnd, String coordinator,
+                         String divisions, String owner, String responsiblesPreview,
+                         String additionalResponsibles, String business, String errorMessage,
+                         Long version) {
+        this.id = id;
+        this.number = number;
+        this.structure = structure;
+        this.level = level;
+        this.goalPreview = goalPreview;
+        this.deadline = deadline;
+        this.deadlineEnd = deadlineEnd;
+        this.coordinator = coordinator;
+        this.divisions = divisions;
+        this.owner = owner;
+        this.responsiblesPreview = responsiblesPreview;
+        this.additionalResponsibles = additionalResponsibles;
+        this.business = business;
+        this.errorMessage = errorMessage;
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+    public String getNumber() { return number; }
+    public TargetIndicator.Structure getStructure() { return structure; }
+    public String getLevel() { return level; }
+    public String getGoalPreview() { return goalPreview; }
+    public boolean isGoalTruncated() { return IndicatorListItem.isTruncated(goalPreview); }
+    public String getDeadline() { return deadline; }
+    public String getDeadlineEnd() { return deadlineEnd; }
+    public String getCoordinator() { return coordinator; }
+    public String getDivisions() { return divisions; }
+    public String getOwner() { return owner; }
+    public String getResponsiblesPreview() { return responsiblesPreview; }
+    public boolean isResponsiblesTruncated() { return IndicatorListItem.isTruncated(responsiblesPreview); }
+    public String getAdditionalResponsibles() { return additionalResponsibles; }
+    public String getBusiness() { return business; }
+    public String getErrorMessage() { return errorMessage; }
+    // Версия строки для правки через PATCH
+    public Long getVersion() { return version; }
+}
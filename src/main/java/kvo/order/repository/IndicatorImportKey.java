@@ -0,0 +1,9 @@
+package kvo.order.repository;
+
+// Ключ сохранённого индикатора для импорта в режиме UPSERT (без загрузки LOB-полей)
+public interface IndicatorImportKey {
+    Long getId();
+    String getNumberKey();
+    String getContentHash();
+    String getStatus();
+}
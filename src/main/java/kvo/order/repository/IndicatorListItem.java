@@ -0,0 +1,75 @@
+package kvo.order.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import kvo.order.model.TargetIndicator;
+
+// Строка списка индикаторов: колонки таблицы, goal и responsibles - превью вместо LOB-полей.
+// Выбирается конструктором в JPQL (TargetIndicatorRepository.LIST_ITEM).
+// Полный индикатор - GET /data/indicators/{id}
+public class IndicatorListItem {
+    private final Long id;
+    private final String number;
+    private final String sortKey;
+    private final TargetIndicator.Structure structure;
+    private final String level;
+    private final String goalPreview;
+    private final String deadline;
+    private final String deadlineEnd;
+    private final String coordinator;
+    private final String divisions;
+    private final String owner;
+    private final String responsiblesPreview;
+    private final String additionalResponsibles;
+    private final String business;
+    private final String status;
+    private final Long version;
+
+    public IndicatorListItem(Long id, String number, String sortKey, TargetIndicator.Structure structure, String level,
+                             String goalPreview, String deadline, String deadlineEnd, String coordinator,
+                             String divisions, String owner, String responsiblesPreview,
+                             String additionalResponsibles, String business, String status,
+                             Long version) {
+        this.id = id;
+        this.number = number;
+        this.sortKey = sortKey;
+        this.structure = structure;
+        this.level = level;
+        this.goalPreview = goalPreview;
+        this.deadline = deadline;
+        this.deadlineEnd = deadlineEnd;
+        this.coordinator = coordinator;
+        this.divisions = divisions;
+        this.owner = owner;
+        this.responsiblesPreview = responsiblesPreview;
+        this.additionalResponsibles = additionalResponsibles;
+        this.business = business;
+        this.status = status;
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+    public String getNumber() { return number; }
+    @JsonIgnore
+    public String getSortKey() { return sortKey; }
+    public TargetIndicator.Structure getStructure() { return structure; }
+    public String getLevel() { return level; }
+    public String getGoalPreview() { return goalPreview; }
+    // true - goal длиннее превью, полный текст в детальном ответе
+    public boolean isGoalTruncated() { return isTruncated(goalPreview); }
+    public String getDeadline() { return deadline; }
+    public String getDeadlineEnd() { return deadlineEnd; }
+    public String getCoordinator() { return coordinator; }
+    public String getDivisions() { return divisions; }
+    public String getOwner() { return owner; }
+    public String getResponsiblesPreview() { return responsiblesPreview; }
+    public boolean isResponsiblesTruncated() { return isTruncated(responsiblesPreview); }
+    public String getAdditionalResponsibles() { return additionalResponsibles; }
+    public String getBusiness() { return business; }
+    public String getStatus() { return status; }
+    // Версия строки для правки через PATCH
+    public Long getVersion() { return version; }
+
+    static boolean isTruncated(String preview) {
+        return preview != null && preview.length() > TargetIndicator.PREVIEW_LENGTH;
+    }
+}
@@ -1,9 +1,14 @@
 package kvo.order.repository;
 
 import kvo.order.model.TargetIndicator;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,8 +19,10 @@ public interface TargetIndicatorRepository extends JpaRepository<TargetIndicator
     // Найти по структуре
     List<TargetIndicator> findByStructure(TargetIndicator.Structure structure);
 
-    // Найти по дивизиону (используя строковое поле divisions)
-    List<TargetIndicator> findByDivisionsContaining(String division);
+    // Индикаторы хотя бы одного из дивизионов: поиск по индексу target_indicator_division
+    @Query("select t from TargetIndicator t where exists (select 1 from t.divisionSet d where d in :divisions)"
+            + " order by t.sortKey, t.id")
+    List<TargetIndicator> findByDivisionIn(@Param("divisions") Collection<String> divisions);
 
     // Найти по владельцу
     List<TargetIndicator> findByOwner(String owner);
@@ -27,7 +34,10 @@ public interface TargetIndicatorRepository extends JpaRepository<TargetIndicator
     List<TargetIndicator> findByStatus(String status);
 
     // Найти по нескольким критериям
-    List<TargetIndicator> findByStructureAndDivisionsContaining(TargetIndicator.Structure structure, String division);
+    @Query("select t from TargetIndicator t where t.structure = :structure"
+            + " and exists (select 1 from t.divisionSet d where d in :divisions) order by t.sortKey, t.id")
+    List<TargetIndicator> findByStructureAndDivisionIn(@Param("structure") TargetIndicator.Structure structure,
+                                                       @Param("divisions") Collection<String> divisions);
 
     // Проверить существование по номеру
     boolean existsByNumber(String number);
@@ -35,6 +45,59 @@ public interface TargetIndicatorRepository extends JpaRepository<TargetIndicator
     // Удалить по номеру
     void deleteByNumber(String number);
 
+    // Все индикаторы в иерархическом порядке номеров (по индексу sort_key)
+    List<TargetIndicator> findAllByOrderBySortKeyAscIdAsc();
+
+    // Keyset-страница в иерархическом порядке номеров: строки строго после (sortKey, id)
+    @Query("select t from TargetIndicator t where t.sortKey > :sortKey or (t.sortKey = :sortKey and t.id > :id) order by t.sortKey, t.id")
+    List<TargetIndicator> findPageAfter(@Param("sortKey") String sortKey, @Param("id") Long id, Pageable pageable);
+
+    // Строки списка: колонки таблицы и превью, без LOB-колонок goal и responsibles
+    String LIST_ITEM = "select new kvo.order.repository.IndicatorListItem(t.id, t.number, t.sortKey, t.structure, t.level,"
+            + " t.goalPreview, t.deadline, t.deadlineEnd, t.coordinator, t.divisions, t.owner, t.responsiblesPreview,"
+            + " t.additionalResponsibles, t.business, t.status, t.version) from TargetIndicator t";
+
+    // Весь список в иерархическом порядке номеров
+    @Query(LIST_ITEM + " order by t.sortKey, t.id")
+    List<IndicatorListItem> findListAll();
+
+    // Поддерево строками списка: ключи потомков начинаются с ключа узла, ':' - следующий символ после цифр
+    @Query(LIST_ITEM + " where t.sortKey >= :prefix and t.sortKey < concat(:prefix, ':') order by t.sortKey, t.id")
+    List<IndicatorListItem> findListSubtree(@Param("prefix") String sortKeyPrefix);
+
+    // Keyset-страница списка (как findPageAfter)
+    @Query(LIST_ITEM + " where t.sortKey > :sortKey or (t.sortKey = :sortKey and t.id > :id) order by t.sortKey, t.id")
+    List<IndicatorListItem> findListPageAfter(@Param("sortKey") String sortKey, @Param("id") Long id, Pageable pageable);
+
+    // Keyset-страница списка индикаторов хотя бы одного из дивизионов
+    @Query(LIST_ITEM + " where (t.sortKey > :sortKey or (t.sortKey = :sortKey and t.id > :id))"
+            + " and exists (select 1 from t.divisionSet d where d in :divisions) order by t.sortKey, t.id")
+    List<IndicatorListItem> findListPageAfterInDivisions(@Param("sortKey") String sortKey, @Param("id") Long id,
+                                                         @Param("divisions") Collection<String> divisions,
+                                                         Pageable pageable);
+
+    // Ключи индикаторов с заданными ключами номеров (numberKey) - сопоставление пачки строк импорта
+    @Query("select t.id as id, t.numberKey as numberKey, t.contentHash as contentHash, t.status as status"
+            + " from TargetIndicator t where t.numberKey in :numberKeys order by t.id")
+    List<IndicatorImportKey> findImportKeys(@Param("numberKeys") Collection<String> numberKeys);
+
+    // Ключи всех индикаторов - поиск отсутствующих в файле
+    @Query("select t.id as id, t.numberKey as numberKey, t.contentHash as contentHash, t.status as status"
+            + " from TargetIndicator t order by t.id")
+    List<IndicatorImportKey> findAllImportKeys();
+
+    // Удаление по условиям одним DELETE, без загрузки сущностей. Пустой параметр - без условия;
+    // дивизион ищется в таблице дивизионов индикатора. SQL, а не JPQL: перед JPQL DELETE Hibernate сам
+    // очищает таблицу дивизионов тем же условием, и условие по дивизиону перестаёт выполняться.
+    // Строки дивизионов удаляет внешний ключ ON DELETE CASCADE (см. TargetIndicator.divisionSet)
+    @Modifying
+    @Query(value = "delete from target_indicator t where (cast(:status as varchar) is null or t.status = :status)"
+            + " and (cast(:structure as varchar) is null or t.structure = :structure)"
+            + " and (cast(:division as varchar) is null or exists (select 1 from target_indicator_division d"
+            + " where d.indicator_id = t.id and d.division = :division))", nativeQuery = true)
+    int deleteMatching(@Param("status") String status, @Param("structure") String structure,
+                       @Param("division") String division);
+
     // Подсчитать по структуре
     long countByStructure(TargetIndicator.Structure structure);
 }
@@ -0,0 +1,61 @@
+package kvo.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Колоночное представление списка строк для /data?layout=columns:
+// {"count": n, "columns": {"id": [...], "number": [...], ...}} - имена полей один раз на весь список.
+// Колонки - те же свойства, что Jackson пишет для строки (с учётом @JsonIgnore), поэтому состав полей
+// совпадает с построчным ответом
+@Component
+public class ColumnarLayout {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Class<?>, List<Column>> columnsByType = new ConcurrentHashMap<>();
+
+    public Map<String, Object> toColumns(List<?> rows, Class<?> type) {
+        List<Column> columns = columnsByType.computeIfAbsent(type, this::introspect);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Column column : columns) {
+            List<Object> columnValues = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                columnValues.add(column.accessor.getValue(row));
+            }
+            values.put(column.name, columnValues);
+        }
+        Map<String, Object> table = new LinkedHashMap<>();
+        table.put("count", rows.size());
+        table.put("columns", values);
+        return table;
+    }
+
+    private List<Column> introspect(Class<?> type) {
+        List<Column> columns = new ArrayList<>();
+        for (BeanPropertyDefinition property : objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type)).findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor != null) {
+                accessor.fixAccess(true);
+                columns.add(new Column(property.getName(), accessor));
+            }
+        }
+        return List.copyOf(columns);
+    }
+
+    private static class Column {
+        private final String name;
+        private final AnnotatedMember accessor;
+
+        Column(String name, AnnotatedMember accessor) {
+            this.name = name;
+            this.accessor = accessor;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package kvo.order.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ограничение одновременных импортов и экспортов. Каждый держит соединение с БД и заметную память,
+// а на виртуальных потоках (spring.threads.virtual.enabled) число запросов уже не ограничено пулом Tomcat.
+// Лишние операции ждут разрешения не дольше acquire-timeout, затем получают RejectedExecutionException (503).
+@Component
+public class HeavyOperationLimiter {
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public HeavyOperationLimiter(@Value("${app.heavy-operations.max-concurrent:4}") int maxConcurrent,
+                                 @Value("${app.heavy-operations.acquire-timeout:PT30S}") Duration acquireTimeout) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public interface Operation<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public <T, E extends Exception> T run(Operation<T, E> operation) throws E {
+        try (Permit permit = acquire()) {
+            return operation.run();
+        }
+    }
+
+    // Разрешение, которое освобождается позже и, возможно, в другом потоке (потоковый ответ)
+    public Permit acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Сервер занят импортом/экспортом, повторите позже");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Ожидание прервано", e);
+        }
+        return new Permit();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // Повторное close ничего не делает
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Проверки иерархии при импорте одного файла: номер не повторяется и у номера есть родитель.
+// Учитываются уже сохранённые индикаторы (IndicatorHierarchyIndex) и строки, прочитанные ранее из этого файла.
+// Вызывается на стадии записи, строки приходят в порядке файла.
+// При импорте UPSERT сохранённый номер - не дубль (строка обновит индикатор), дублем считается только повтор в файле.
+// В пакетном импорте книга сверяется с номерами всего пакета, собранными заранее (ImportBatchNumbers), а не с индексом:
+// другие книги пакета сохраняются параллельно, и ответ индекса зависел бы от порядка их выполнения
+public class HierarchyImportCheck {
+    private final IndicatorHierarchyIndex index;
+    private final boolean upsert;
+    private final Set<String> seenKeys = new HashSet<>();
+    private final ImportBatchNumbers batch;
+    private final int book;
+
+    public HierarchyImportCheck(IndicatorHierarchyIndex index, boolean upsert) {
+        this(index, upsert, null, 0);
+    }
+
+    // batch - номера книг пакета, book - номер этой книги в пакете; batch == null - одиночный импорт
+    public HierarchyImportCheck(IndicatorHierarchyIndex index, boolean upsert, ImportBatchNumbers batch, int book) {
+        this.index = index;
+        this.upsert = upsert;
+        this.batch = batch;
+        this.book = book;
+    }
+
+    // Текст ошибок для добавления к сообщению строки или null; сработавшие правила добавляются в rules
+    public String check(String number, Set<ImportRule> rules) {
+        String key = TargetIndicator.hierarchyKeyOf(number);
+        if (key.isEmpty()) {
+            return null; // пустой или нечисловой номер уже отклонён основной проверкой
+        }
+        StringBuilder message = new StringBuilder();
+        boolean duplicate = !seenKeys.add(key);
+        if (batch != null) {
+            duplicate |= batch.inEarlierBook(key, book) || (!upsert && batch.isSavedBefore(key));
+        } else {
+            duplicate |= !upsert && index.containsNumber(number);
+        }
+        if (duplicate) {
+            message.append("|!дубль_номера");
+            rules.add(ImportRule.DUPLICATE_NUMBER);
+        }
+        String parentKey = TargetIndicator.parentHierarchyKeyOf(key);
+        if (!parentKey.isEmpty() && !seenKeys.contains(parentKey)
+                && (batch == null || !batch.inOtherBook(parentKey, book)) && !index.parentExists(number)) {
+            message.append("|!нет_родителя");
+            rules.add(ImportRule.MISSING_PARENT);
+        }
+        return message.length() == 0 ? null : message.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Номера всех книг пакетного импорта, собранные до начала импорта, в порядке книг пакета.
+// По ним проверки иерархии (HierarchyImportCheck) дают один и тот же результат, в каком бы порядке
+// книги ни выполнялись на пуле: дубль - номер из предыдущей книги пакета или сохранённый до начала пакета,
+// родитель из любой другой книги пакета засчитывается. После сборки только читается (из нескольких потоков)
+public class ImportBatchNumbers {
+    // Ключ номера (TargetIndicator.hierarchyKeyOf) -> {первая, последняя} книга пакета с этим номером
+    private final Map<String, int[]> books = new HashMap<>();
+    // Ключи номеров пакета, которые уже были сохранены до его начала
+    private final Set<String> savedBefore = new HashSet<>();
+
+    // Книги добавляются по порядку; saved - сохранён ли номер к началу пакета
+    void addBook(int book, Collection<String> numbers, Predicate<String> saved) {
+        for (String number : numbers) {
+            String key = TargetIndicator.hierarchyKeyOf(number);
+            if (key.isEmpty()) {
+                continue;
+            }
+            int[] range = books.computeIfAbsent(key, k -> new int[]{book, book});
+            range[1] = book;
+            if (saved.test(number)) {
+                savedBefore.add(key);
+            }
+        }
+    }
+
+    public boolean inEarlierBook(String key, int book) {
+        int[] range = books.get(key);
+        return range != null && range[0] < book;
+    }
+
+    public boolean inOtherBook(String key, int book) {
+        int[] range = books.get(key);
+        return range != null && (range[0] != book || range[1] != book);
+    }
+
+    public boolean isSavedBefore(String key) {
+        return savedBefore.contains(key);
+    }
+}
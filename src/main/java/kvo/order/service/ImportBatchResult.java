@@ -0,0 +1,84 @@
+package kvo.order.service;
+
+import java.util.List;
+
+// Итог пакетного импорта: результат по каждой книге в порядке файлов запроса и общие счётчики
+public class ImportBatchResult {
+    private final List<FileResult> files;
+    private final long durationMs;
+
+    public ImportBatchResult(List<FileResult> files, long durationMs) {
+        this.files = List.copyOf(files);
+        this.durationMs = durationMs;
+    }
+
+    public List<FileResult> getFiles() { return files; }
+    // Время всего пакета (книги импортируются параллельно)
+    public long getDurationMs() { return durationMs; }
+
+    public long getFailedFiles() {
+        return files.stream().filter(file -> !file.isSuccess()).count();
+    }
+
+    public long getValidRows() {
+        return files.stream().mapToLong(FileResult::getValidRows).sum();
+    }
+
+    public long getErrorRows() {
+        return files.stream().mapToLong(FileResult::getErrorRows).sum();
+    }
+
+    // Сумма времени импорта книг; больше durationMs, когда книги шли параллельно
+    public long getImportMs() {
+        return files.stream().mapToLong(FileResult::getDurationMs).sum();
+    }
+
+    // Итог одной книги; для ZIP имя - "архив.zip/книга.xlsx".
+    // Книга, импорт которой упал на середине, может быть загружена частично: пачки строк фиксируются
+    // по отдельности и при сбое не откатываются. Тогда partial = true, а счётчики - строки зафиксированных пачек
+    public static class FileResult {
+        private final String fileName;
+        private final ImportResult result;
+        private final String message;
+        private final long durationMs;
+        private final long savedValidRows;
+        private final long savedErrorRows;
+
+        private FileResult(String fileName, ImportResult result, String message, long durationMs,
+                           long savedValidRows, long savedErrorRows) {
+            this.fileName = fileName;
+            this.result = result;
+            this.message = message;
+            this.durationMs = durationMs;
+            this.savedValidRows = savedValidRows;
+            this.savedErrorRows = savedErrorRows;
+        }
+
+        public static FileResult of(String fileName, ImportResult result) {
+            return new FileResult(fileName, result,
+                    result.isSuccess() ? null : "Error structure file (СВОД лист, пустые строки...)",
+                    result.getDurationMs(), 0, 0);
+        }
+
+        public static FileResult failed(String fileName, String message, long durationMs) {
+            return failed(fileName, message, durationMs, 0, 0);
+        }
+
+        // savedValidRows / savedErrorRows - строки пачек, зафиксированных до сбоя
+        public static FileResult failed(String fileName, String message, long durationMs,
+                                        long savedValidRows, long savedErrorRows) {
+            return new FileResult(fileName, null, message, durationMs, savedValidRows, savedErrorRows);
+        }
+
+        public String getFileName() { return fileName; }
+        public boolean isSuccess() { return result != null && result.isSuccess(); }
+        public String getMessage() { return message; }
+        public long getDurationMs() { return durationMs; }
+        public boolean isPartial() { return result == null && savedValidRows + savedErrorRows > 0; }
+        public long getValidRows() { return result != null ? result.getValidRows() : savedValidRows; }
+        public long getErrorRows() { return result != null ? result.getErrorRows() : savedErrorRows; }
+        public long getInserted() { return result != null ? result.getInserted() : 0; }
+        public long getUpdated() { return result != null ? result.getUpdated() : 0; }
+        public long getUnchanged() { return result != null ? result.getUnchanged() : 0; }
+    }
+}
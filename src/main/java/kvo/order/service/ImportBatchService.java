@@ -0,0 +1,212 @@
+package kvo.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Пакетный импорт: несколько .xlsx или ZIP с книгами (по книге СВОД от каждого дивизиона).
+// Книги сохраняются во временные файлы в рамках запроса и импортируются параллельно на пуле importBatchExecutor.
+// Каждая книга - отдельный импорт со своими транзакциями пачек и своим результатом:
+// ошибка одной книги не откатывает и не останавливает остальные.
+// Для проверок иерархии номера всех книг читаются заранее (ImportBatchNumbers): результат книги не зависит
+// от того, какие книги пакета пул успел сохранить раньше неё.
+// В режиме UPSERT книги импортируются по очереди, в порядке пакета: две параллельные книги с одним новым номером
+// не видят незафиксированных строк друг друга, и обе вставили бы его. По очереди следующая книга обновляет его
+@Service
+public class ImportBatchService {
+    private static final Logger log = LoggerFactory.getLogger(ImportBatchService.class);
+    // Имена в ZIP без флага UTF-8 - в кодировке архиватора Windows
+    private static final Charset ZIP_NAME_CHARSET = Charset.forName("CP866");
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private ExecutorService importBatchExecutor;
+
+    @Value("${app.import.batch.max-files:50}")
+    private int maxFiles;
+
+    @Value("${app.import.batch.max-entry-size:100MB}")
+    private DataSize maxEntrySize;
+
+    // IllegalArgumentException - пакет не может быть импортирован целиком (режим, число книг)
+    public ImportBatchResult importFiles(List<MultipartFile> files, ImportOptions options) throws IOException {
+        if (options.getMissing() != ImportOptions.MissingRows.KEEP) {
+            // Для каждой книги отсутствующими оказались бы строки всех остальных книг пакета
+            throw new IllegalArgumentException("Пакетный импорт поддерживает только missing=keep");
+        }
+        long started = System.nanoTime();
+        List<Path> tempFiles = new ArrayList<>();
+        try {
+            // Результаты в порядке файлов запроса: готовый (пропущенный файл) или ожидаемый импорт
+            List<Future<ImportBatchResult.FileResult>> results = new ArrayList<>();
+            List<Workbook> workbooks = new ArrayList<>();
+            for (MultipartFile file : files) {
+                String name = Objects.toString(file.getOriginalFilename(), "");
+                String lowerName = name.toLowerCase(Locale.ROOT);
+                if (lowerName.endsWith(".zip")) {
+                    unpack(file, name, workbooks, tempFiles);
+                } else if (lowerName.endsWith(".xlsx")) {
+                    Path tempFile = createTempFile(tempFiles);
+                    file.transferTo(tempFile);
+                    workbooks.add(new Workbook(name, tempFile, null));
+                } else {
+                    workbooks.add(new Workbook(name, null, "Only .xlsx and .zip files are allowed!"));
+                }
+            }
+            if (workbooks.size() > maxFiles) {
+                throw new IllegalArgumentException("В пакете " + workbooks.size() + " книг, допускается не больше " + maxFiles);
+            }
+            ImportBatchNumbers numbers = indicatorService.isHierarchyChecks(options)
+                    ? indicatorService.collectBatchNumbers(workbooks.stream().map(workbook -> workbook.path).toList())
+                    : null;
+            for (int book = 0; book < workbooks.size(); book++) {
+                Workbook workbook = workbooks.get(book);
+                ImportOptions bookOptions = options.forBatchBook(numbers, book);
+                if (workbook.path == null) {
+                    results.add(CompletableFuture.completedFuture(
+                            ImportBatchResult.FileResult.failed(workbook.name, workbook.skipReason, 0)));
+                } else if (options.isUpsert()) {
+                    results.add(CompletableFuture.completedFuture(importWorkbook(workbook, bookOptions)));
+                } else {
+                    results.add(importBatchExecutor.submit(() -> importWorkbook(workbook, bookOptions)));
+                }
+            }
+            List<ImportBatchResult.FileResult> fileResults = new ArrayList<>();
+            for (Future<ImportBatchResult.FileResult> result : results) {
+                fileResults.add(await(result));
+            }
+            ImportBatchResult batch = new ImportBatchResult(fileResults, (System.nanoTime() - started) / 1_000_000);
+            log.info("Пакетный импорт: {} книг, ошибок {}, строк {} / {} с ошибками, {} мс (сумма по книгам {} мс)",
+                    fileResults.size(), batch.getFailedFiles(), batch.getValidRows(), batch.getErrorRows(),
+                    batch.getDurationMs(), batch.getImportMs());
+            return batch;
+        } finally {
+            for (Path tempFile : tempFiles) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("Не удалось удалить временный файл {}: {}", tempFile, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private ImportBatchResult.FileResult importWorkbook(Workbook workbook, ImportOptions options) {
+        long started = System.nanoTime();
+        // Строки зафиксированных пачек: при сбое они остаются в базе, и в итоге книги это видно
+        long[] saved = {0, 0};
+        try {
+            return ImportBatchResult.FileResult.of(workbook.name,
+                    indicatorService.importWorkbook(workbook.path, workbook.name, options,
+                            (processedRows, validRows, errorRows) -> {
+                                saved[0] = validRows;
+                                saved[1] = errorRows;
+                            }));
+        } catch (Exception e) {
+            log.error("Ошибка импорта {} из пакета (зафиксировано строк {} / {} с ошибками): ",
+                    workbook.name, saved[0], saved[1], e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return ImportBatchResult.FileResult.failed(workbook.name, "Error uploading file: " + message,
+                    (System.nanoTime() - started) / 1_000_000, saved[0], saved[1]);
+        }
+    }
+
+    // Книги .xlsx из архива; каталоги, служебные файлы macOS и временные файлы Excel (~$) пропускаются
+    private void unpack(MultipartFile file, String zipName, List<Workbook> workbooks, List<Path> tempFiles)
+            throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(file.getInputStream(), ZIP_NAME_CHARSET)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String entryName = entry.getName();
+                String baseName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                if (entry.isDirectory() || entryName.startsWith("__MACOSX/")
+                        || baseName.startsWith("~$") || baseName.startsWith(".")) {
+                    continue;
+                }
+                String name = zipName + "/" + entryName;
+                if (!baseName.toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+                    workbooks.add(new Workbook(name, null, "Only .xlsx files are allowed!"));
+                    continue;
+                }
+                if (workbooks.size() >= maxFiles) {
+                    throw new IllegalArgumentException("В пакете больше " + maxFiles + " книг");
+                }
+                Path tempFile = createTempFile(tempFiles);
+                if (copyLimited(zip, tempFile)) {
+                    workbooks.add(new Workbook(name, tempFile, null));
+                } else {
+                    workbooks.add(new Workbook(name, null, "Книга больше " + maxEntrySize.toMegabytes() + " МБ"));
+                }
+            }
+        }
+    }
+
+    // Копирование элемента архива с ограничением размера (защита от ZIP-бомб); false - предел превышен
+    private boolean copyLimited(InputStream in, Path target) throws IOException {
+        long limit = maxEntrySize.toBytes();
+        long total = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                total += read;
+                if (total > limit) {
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    private static Path createTempFile(List<Path> tempFiles) throws IOException {
+        Path tempFile = Files.createTempFile("order-import-batch-", ".xlsx");
+        tempFiles.add(tempFile);
+        return tempFile;
+    }
+
+    private static ImportBatchResult.FileResult await(Future<ImportBatchResult.FileResult> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание пакетного импорта прервано", e);
+        } catch (ExecutionException e) {
+            // importWorkbook перехватывает ошибки сам; сюда попадают только ошибки пула
+            throw new IOException("Ошибка пакетного импорта: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Книга пакета: временный файл или причина, по которой она пропущена
+    private static class Workbook {
+        private final String name;
+        private final Path path;
+        private final String skipReason;
+
+        Workbook(String name, Path path, String skipReason) {
+            this.name = name;
+            this.path = path;
+            this.skipReason = skipReason;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package kvo.order.service;
+
+import jakarta.persistence.EntityManager;
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+import kvo.order.repository.ErrorIndicatorRepository;
+import kvo.order.repository.IndicatorImportKey;
+import kvo.order.repository.TargetIndicatorRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Стадия записи импорта: строки копятся в пачку и сохраняются одной транзакцией на пачку
+// (JDBC batch, см. hibernate.jdbc.batch_size). Не потокобезопасен - один экземпляр на файл.
+// В режиме UPSERT пачка сопоставляется с сохранёнными индикаторами одним запросом по ключу номера (numberKey):
+// INSERT только для новых номеров, UPDATE только для строк с другим хэшем содержимого.
+// Повтор номера в файле конвейер отклоняет как дубль (isRepeatedNumber), поэтому номер пишется один раз.
+public class ImportBatchWriter {
+    // Вызывается после фиксации каждой пачки (сущности уже с id): indicators - вставленные и изменённые,
+    // removedErrors - id заменённых ошибок, validRows - валидные строки пачки вместе с неизменёнными
+    public interface FlushListener {
+        void flushed(List<TargetIndicator> indicators, List<ErrorIndicator> errors, List<Long> removedErrors, int validRows);
+    }
+
+    private static final String VALID_STATUS = "valid";
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private final TargetIndicatorRepository targetRepo;
+    private final ErrorIndicatorRepository errorRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final FlushListener listener;
+    private final boolean upsert;
+
+    private final List<TargetIndicator> indicators = new ArrayList<>();
+    private final List<ErrorIndicator> errors = new ArrayList<>();
+    // UPSERT: ключи номеров (numberKey) всех строк файла, включая строки с ошибками
+    private final Set<String> seenKeys = new HashSet<>();
+    private long insertedIndicators;
+    private long updatedIndicators;
+    private long unchangedIndicators;
+    private long insertedErrors;
+
+    public ImportBatchWriter(TargetIndicatorRepository targetRepo, ErrorIndicatorRepository errorRepo,
+                             TransactionTemplate transactionTemplate, EntityManager entityManager, int batchSize,
+                             boolean upsert, FlushListener listener) {
+        this.targetRepo = targetRepo;
+        this.errorRepo = errorRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
+        this.upsert = upsert;
+        this.listener = listener;
+    }
+
+    public void addIndicator(TargetIndicator indicator) {
+        indicators.add(indicator);
+        remember(indicator);
+        flushIfFull();
+    }
+
+    public void addError(TargetIndicator indicator, String reason) {
+        errors.add(toErrorIndicator(indicator, reason));
+        remember(indicator);
+        flushIfFull();
+    }
+
+    private void remember(TargetIndicator indicator) {
+        if (upsert && !indicator.getNumberKey().isEmpty()) {
+            seenKeys.add(indicator.getNumberKey());
+        }
+    }
+
+    // UPSERT: номер уже был в предыдущих строках файла. Вторая строка обновила бы тот же индикатор
+    // (или вставила второй), поэтому её результат зависел бы от деления на пачки
+    public boolean isRepeatedNumber(String number) {
+        if (!upsert) {
+            return false;
+        }
+        String key = TargetIndicator.hierarchyKeyOf(number);
+        return !key.isEmpty() && seenKeys.contains(key);
+    }
+
+    private void flushIfFull() {
+        if (indicators.size() + errors.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (indicators.isEmpty() && errors.isEmpty()) {
+            return;
+        }
+        List<TargetIndicator> written = new ArrayList<>(indicators.size());
+        List<Long> removedErrors = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (upsert) {
+                written.addAll(upsertIndicators());
+                removedErrors.addAll(removeErrorsWithSameNumbers());
+            } else {
+                written.addAll(targetRepo.saveAll(indicators));
+                insertedIndicators += indicators.size();
+            }
+            errorRepo.saveAll(errors);
+            entityManager.flush();
+            // Не копим сущности в контексте (open-in-view держит его весь запрос)
+            entityManager.clear();
+        });
+        insertedErrors += errors.size();
+        listener.flushed(written, List.copyOf(errors), removedErrors, indicators.size());
+        indicators.clear();
+        errors.clear();
+    }
+
+    // При повторе номера в БД (после импортов APPEND) обновляется индикатор с меньшим id
+    private List<TargetIndicator> upsertIndicators() {
+        Map<String, IndicatorImportKey> existing = new HashMap<>();
+        if (!indicators.isEmpty()) {
+            Set<String> keys = new LinkedHashSet<>();
+            indicators.forEach(indicator -> keys.add(indicator.getNumberKey()));
+            for (IndicatorImportKey key : targetRepo.findImportKeys(keys)) {
+                existing.putIfAbsent(key.getNumberKey(), key);
+            }
+        }
+        List<TargetIndicator> inserted = new ArrayList<>();
+        Map<Long, TargetIndicator> changed = new LinkedHashMap<>();
+        for (TargetIndicator indicator : indicators) {
+            IndicatorImportKey key = existing.get(indicator.getNumberKey());
+            if (key == null) {
+                inserted.add(indicator);
+            } else if (VALID_STATUS.equals(key.getStatus())
+                    && TargetIndicator.contentHashOf(indicator).equals(key.getContentHash())) {
+                unchangedIndicators++;
+            } else {
+                changed.put(key.getId(), indicator);
+            }
+        }
+        List<TargetIndicator> written = new ArrayList<>(targetRepo.saveAll(inserted));
+        insertedIndicators += inserted.size();
+        if (!changed.isEmpty()) {
+            for (TargetIndicator entity : targetRepo.findAllById(changed.keySet())) {
+                copyContent(changed.get(entity.getId()), entity);
+                entity.setStatus(VALID_STATUS);
+                written.add(entity);
+            }
+            updatedIndicators += changed.size();
+        }
+        return written;
+    }
+
+    // Ошибки прошлых импортов с номерами строк пачки заменяются результатом этого файла
+    private List<Long> removeErrorsWithSameNumbers() {
+        Set<String> numbers = new HashSet<>();
+        indicators.forEach(indicator -> addNumber(numbers, indicator.getNumber()));
+        errors.forEach(error -> addNumber(numbers, error.getNumber()));
+        if (numbers.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = errorRepo.findIdsByNumberIn(numbers);
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            errorRepo.deleteAllByIdInBatch(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())));
+        }
+        return ids;
+    }
+
+    private static void addNumber(Set<String> numbers, String number) {
+        if (number != null && !number.isEmpty()) {
+            numbers.add(number);
+        }
+    }
+
+    private static void copyContent(TargetIndicator from, TargetIndicator to) {
+        to.setNumber(from.getNumber());
+        to.setStructure(from.getStructure());
+        to.setLevel(from.getLevel());
+        to.setGoal(from.getGoal());
+        to.setDeadline(from.getDeadline());
+        to.setDeadlineEnd(from.getDeadlineEnd());
+        to.setDivisions(from.getDivisions());
+        to.setOwner(from.getOwner());
+        to.setCoordinator(from.getCoordinator());
+        to.setResponsibles(from.getResponsibles());
+        to.setAdditionalResponsibles(from.getAdditionalResponsibles());
+        to.setBusiness(from.getBusiness());
+    }
+
+    private ErrorIndicator toErrorIndicator(TargetIndicator indicator, String reason) {
+        ErrorIndicator error = new ErrorIndicator();
+        error.setNumber(indicator.getNumber());
+        error.setStructure(indicator.getStructure());
+        error.setLevel(indicator.getLevel());
+        error.setGoal(indicator.getGoal());
+        error.setDeadline(indicator.getDeadline());
+        error.setDeadlineEnd(indicator.getDeadlineEnd());
+        error.setDivisions(indicator.getDivisions());
+        error.setCoordinator(indicator.getCoordinator());
+        error.setOwner(indicator.getOwner());
+        error.setResponsibles(indicator.getResponsibles());
+        error.setAdditionalResponsibles(indicator.getAdditionalResponsibles());
+        error.setBusiness(indicator.getBusiness());
+        error.setErrorMessage(reason);
+        return error;
+    }
+
+    public long getInsertedIndicators() { return insertedIndicators; }
+    public long getUpdatedIndicators() { return updatedIndicators; }
+    public long getUnchangedIndicators() { return unchangedIndicators; }
+    public long getValidRows() { return insertedIndicators + updatedIndicators + unchangedIndicators; }
+    public long getInsertedErrors() { return insertedErrors; }
+    public Set<String> getSeenKeys() { return seenKeys; }
+}
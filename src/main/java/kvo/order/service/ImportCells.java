@@ -0,0 +1,229 @@
+package kvo.order.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Разбор ячеек и проверки формата для импорта без регулярных выражений и лишних объектов.
+// Каждый метод повторяет поведение прежнего кода (String.split / String.matches / LocalDate.parse),
+// но сканирует строку по индексам. Все методы потокобезопасны.
+public final class ImportCells {
+    // DateTimeFormatter неизменяем - один экземпляр на всё приложение (вместо new SimpleDateFormat на ячейку)
+    public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int DATE_LENGTH = 10;
+
+    private ImportCells() {
+    }
+
+    // Дата ячейки в виде "dd-MM-yyyy"
+    public static String formatDate(LocalDateTime value) {
+        char[] out = new char[DATE_LENGTH];
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            return DATE_FORMATTER.format(value);
+        }
+        putTwoDigits(out, 0, value.getDayOfMonth());
+        out[2] = '-';
+        putTwoDigits(out, 3, value.getMonthValue());
+        out[5] = '-';
+        putTwoDigits(out, 6, year / 100);
+        putTwoDigits(out, 8, year % 100);
+        return new String(out);
+    }
+
+    // LocalDate.parse(value.trim(), DATE_FORMATTER): "dd-MM-yyyy" разбирается вручную,
+    // всё остальное (в т.ч. ошибки) уходит в DateTimeFormatter с теми же исключениями.
+    // Как и ResolverStyle.SMART, день больше длины месяца (до 31) приводится к последнему дню.
+    public static LocalDate parseDate(String value) {
+        int start = trimStart(value, 0, value.length());
+        int end = trimEnd(value, start, value.length());
+        if (end - start == DATE_LENGTH && value.charAt(start + 2) == '-' && value.charAt(start + 5) == '-') {
+            int day = digits(value, start, start + 2);
+            int month = digits(value, start + 3, start + 5);
+            int year = digits(value, start + 6, start + 10);
+            if (day >= 1 && day <= 31 && month >= 1 && month <= 12 && year >= 1) {
+                LocalDate first = LocalDate.of(year, month, 1);
+                return first.withDayOfMonth(Math.min(day, first.lengthOfMonth()));
+            }
+        }
+        return LocalDate.parse(value.trim(), DATE_FORMATTER);
+    }
+
+    // value.split(String.valueOf(separator)).length: число частей без пустых хвостовых
+    public static int segmentCount(String value, char separator) {
+        if (value.isEmpty()) {
+            return 1;
+        }
+        int count = 0;
+        int nonEmpty = 0;
+        int segmentStart = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == separator) {
+                count++;
+                if (i > segmentStart) {
+                    nonEmpty = count;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return nonEmpty;
+    }
+
+    // Каждая часть номера между точками (после trim) пуста или состоит из цифр
+    public static boolean isDottedNumber(String value) {
+        int segmentStart = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == '.') {
+                int start = trimStart(value, segmentStart, i);
+                int end = trimEnd(value, start, i);
+                if (start < end && !isDigits(value, start, end)) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    // Номер верхнего уровня: split("\\.") даёт одну часть, и она (после trim) - число.
+    // Номер из одних точек частей не содержит - не корневой (ошибку формата даёт isDottedNumber/segmentCount)
+    public static boolean isRootNumber(String value) {
+        int segments = segmentCount(value, '.');
+        if (segments != 1) {
+            return false;
+        }
+        int dot = value.indexOf('.');
+        int start = trimStart(value, 0, dot < 0 ? value.length() : dot);
+        int end = trimEnd(value, start, dot < 0 ? value.length() : dot);
+        return start < end && isDigits(value, start, end);
+    }
+
+    // Учётная запись вида GAZ\login: "GAZ" без учёта регистра, логин из [A-Za-z0-9_.-]
+    public static boolean isLogin(String value) {
+        return isLogin(value, 0, value.length());
+    }
+
+    // Все части через ";" (после trim) - учётные записи; пустые хвостовые части отбрасываются, как у split
+    public static boolean isLoginList(String value) {
+        int segments = segmentCount(value, ';');
+        int segmentStart = 0;
+        for (int i = 0, seen = 0; seen < segments; i++) {
+            if (i == value.length() || value.charAt(i) == ';') {
+                int start = trimStart(value, segmentStart, i);
+                int end = trimEnd(value, start, i);
+                if (!isLogin(value, start, end)) {
+                    return false;
+                }
+                segmentStart = i + 1;
+                seen++;
+            }
+        }
+        return true;
+    }
+
+    // Список через запятые, ";" и пробельные символы: каждая непустая часть - учётная запись
+    public static boolean isLoginSet(String value) {
+        int segmentStart = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || isListSeparator(value.charAt(i))) {
+                int start = trimStart(value, segmentStart, i);
+                int end = trimEnd(value, start, i);
+                if (start < end && !isLogin(value, start, end)) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    // Номер столбца из ссылки на ячейку ("A1" -> 0, "AB12" -> 27), без new CellReference
+    public static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch == '$') {
+                continue;
+            }
+            if (ch >= 'a' && ch <= 'z') {
+                ch -= 'a' - 'A';
+            }
+            if (ch < 'A' || ch > 'Z') {
+                break;
+            }
+            column = column * 26 + (ch - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static boolean isLogin(String value, int start, int end) {
+        if (end - start < 5) {
+            return false;
+        }
+        if (!equalsIgnoreCaseAscii(value.charAt(start), 'G') || !equalsIgnoreCaseAscii(value.charAt(start + 1), 'A')
+                || !equalsIgnoreCaseAscii(value.charAt(start + 2), 'Z') || value.charAt(start + 3) != '\\') {
+            return false;
+        }
+        for (int i = start + 4; i < end; i++) {
+            char ch = value.charAt(i);
+            boolean word = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+            if (!word && ch != '.' && ch != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCaseAscii(char ch, char upper) {
+        return ch == upper || ch == upper + ('a' - 'A');
+    }
+
+    // Разделители регулярного выражения [,\s;]+
+    private static boolean isListSeparator(char ch) {
+        return ch == ',' || ch == ';' || ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+
+    // Цифры 0-9 (как \d без UNICODE_CHARACTER_CLASS)
+    private static boolean isDigits(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Значение из цифр или -1
+    private static int digits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+
+    // Границы как у String.trim(): отбрасываются символы <= ' '
+    private static int trimStart(String value, int start, int end) {
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String value, int start, int end) {
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static void putTwoDigits(char[] out, int at, int value) {
+        out[at] = (char) ('0' + value / 10);
+        out[at + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,212 @@
+package kvo.order.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Фоновое задание импорта одного файла. Обновляется потоком импорта, читается запросами статуса;
+// подписчики (SSE) получают состояние задания после каждой пачки и по завершении.
+// Отправка подписчикам (запись в сокет) идёт под блокировкой, поэтому ReentrantLock, а не synchronized:
+// виртуальный поток не закрепляется за потоком-носителем на время записи.
+public class ImportJob {
+    public enum State { QUEUED, RUNNING, COMPLETED, REJECTED, FAILED }
+
+    // Подписчик на изменения; last = true - последнее событие, задание завершено
+    public interface Listener {
+        void changed(Map<String, Object> status, boolean last);
+    }
+
+    private final String id;
+    private final String fileName;
+    private final Instant submittedAt = Instant.now();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.QUEUED;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long processedRows;
+    private long validRows;
+    private long errorRows;
+    private ImportResult result;
+    private String message;
+
+    public ImportJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public Instant getSubmittedAt() { return submittedAt; }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isFinished() {
+        lock.lock();
+        try {
+            return finishedAt != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Завершено раньше указанного момента (для очистки)
+    public boolean finishedBefore(Instant moment) {
+        lock.lock();
+        try {
+            return finishedAt != null && finishedAt.isBefore(moment);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void start() {
+        lock.lock();
+        try {
+            state = State.RUNNING;
+            startedAt = Instant.now();
+            notifyListeners(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void progress(long processedRows, long validRows, long errorRows) {
+        lock.lock();
+        try {
+            this.processedRows = processedRows;
+            this.validRows = validRows;
+            this.errorRows = errorRows;
+            notifyListeners(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void complete(ImportResult result) {
+        lock.lock();
+        try {
+            this.result = result;
+            if (result.isSuccess()) {
+                state = State.COMPLETED;
+                processedRows = result.getTotalRows();
+                validRows = result.getValidRows();
+                errorRows = result.getErrorRows();
+            } else {
+                state = State.REJECTED;
+                message = "Error structure file (СВОД лист, пустые строки...)";
+            }
+            finish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void fail(String message) {
+        lock.lock();
+        try {
+            state = State.FAILED;
+            this.message = message;
+            finish();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish() {
+        finishedAt = Instant.now();
+        notifyListeners(true);
+        listeners.clear();
+    }
+
+    // Подписка; для завершённого задания слушатель сразу получает итог. Возвращает функцию отписки
+    public Runnable subscribe(Listener listener) {
+        lock.lock();
+        try {
+            if (finishedAt != null) {
+                listener.changed(snapshot(), true);
+                return () -> { };
+            }
+            listeners.add(listener);
+            listener.changed(snapshot(), false);
+            return () -> unsubscribe(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unsubscribe(Listener listener) {
+        lock.lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyListeners(boolean last) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Map<String, Object> status = snapshot();
+        for (Listener listener : List.copyOf(listeners)) {
+            try {
+                listener.changed(status, last);
+            } catch (RuntimeException e) {
+                listeners.remove(listener); // подписчик отключился - импорт продолжается
+            }
+        }
+    }
+
+    public Map<String, Object> status() {
+        lock.lock();
+        try {
+            return snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Object> snapshot() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", id);
+        status.put("fileName", fileName);
+        status.put("state", state);
+        status.put("submittedAt", submittedAt.toString());
+        status.put("startedAt", startedAt == null ? null : startedAt.toString());
+        status.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        status.put("processedRows", processedRows);
+        status.put("validRows", validRows);
+        status.put("errorRows", errorRows);
+        if (result != null) {
+            status.put("success", result.isSuccess());
+            status.put("durationMs", result.getDurationMs());
+            status.put("rowsPerSecond", Math.round(result.getRowsPerSecond()));
+            status.put("inserted", result.getInserted());
+            status.put("updated", result.getUpdated());
+            status.put("unchanged", result.getUnchanged());
+            status.put("marked", result.getMarked());
+            status.put("removed", result.getRemoved());
+        } else if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            status.put("durationMs", Duration.between(startedAt, end).toMillis());
+        }
+        if (message != null) {
+            status.put("success", false);
+            status.put("message", message);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,120 @@
+package kvo.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// Фоновый импорт: файл сохраняется на диск в рамках запроса, импорт выполняется на пуле importJobExecutor.
+// Завершённые задания хранятся app.import.jobs.retention и затем удаляются.
+@Service
+public class ImportJobService {
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private ExecutorService importJobExecutor;
+
+    @Value("${app.import.jobs.retention:PT1H}")
+    private Duration retention;
+
+    @Value("${app.import.jobs.events-timeout:PT30M}")
+    private Duration eventsTimeout;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    // Постановка файла в очередь. RejectedExecutionException - очередь заданий заполнена
+    public ImportJob submit(MultipartFile file, ImportOptions options) throws IOException {
+        Path tempFile = Files.createTempFile("order-import-job-", ".xlsx");
+        try {
+            file.transferTo(tempFile);
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename());
+            jobs.put(job.getId(), job);
+            try {
+                importJobExecutor.execute(() -> run(job, tempFile, options));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                throw e;
+            }
+            return job;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    private void run(ImportJob job, Path file, ImportOptions options) {
+        job.start();
+        try {
+            job.complete(indicatorService.importWorkbook(file, job.getFileName(), options, job::progress));
+        } catch (Exception e) {
+            log.error("Ошибка фонового импорта {}: ", job.getId(), e);
+            job.fail("Error uploading file: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить временный файл {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    public Optional<ImportJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    // Задания, начиная с последних
+    public List<Map<String, Object>> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getSubmittedAt).reversed())
+                .map(ImportJob::status)
+                .toList();
+    }
+
+    // Поток событий задания (Server-Sent Events): "progress" после каждой пачки, "done" с итогом
+    public SseEmitter events(ImportJob job) {
+        SseEmitter emitter = new SseEmitter(eventsTimeout.toMillis());
+        Runnable unsubscribe = job.subscribe((status, last) -> {
+            try {
+                emitter.send(SseEmitter.event().name(last ? "done" : "progress").data(status, MediaType.APPLICATION_JSON));
+                if (last) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.jobs.cleanup-interval:60000}")
+    public void removeExpiredJobs() {
+        Instant expired = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedBefore(expired));
+    }
+}
@@ -0,0 +1,66 @@
+package kvo.order.service;
+
+// Режим импорта файла.
+// APPEND - все строки добавляются (как раньше).
+// UPSERT - строки сопоставляются с сохранёнными индикаторами по номеру (sortKey): новые вставляются,
+// изменённые (другой хэш содержимого) обновляются, неизменённые пропускаются; ошибки с теми же номерами заменяются.
+// missing - что делать в режиме UPSERT с индикаторами, номеров которых нет в файле.
+// hierarchyChecks - проверять дубли номеров и наличие родителя (HierarchyImportCheck); null - по app.import.hierarchy-checks
+public class ImportOptions {
+    public enum Mode { APPEND, UPSERT }
+
+    public enum MissingRows { KEEP, MARK, DELETE }
+
+    // Статус индикатора, отсутствующего в последнем файле (missing=MARK)
+    public static final String MISSING_STATUS = "missing";
+
+    public static final ImportOptions APPEND = new ImportOptions(Mode.APPEND, MissingRows.KEEP);
+
+    private final Mode mode;
+    private final MissingRows missing;
+    private final Boolean hierarchyChecks;
+    private final ImportBatchNumbers batchNumbers;
+    private final int batchBook;
+
+    public ImportOptions(Mode mode, MissingRows missing) {
+        this(mode, missing, null, null, 0);
+    }
+
+    private ImportOptions(Mode mode, MissingRows missing, Boolean hierarchyChecks,
+                          ImportBatchNumbers batchNumbers, int batchBook) {
+        this.mode = mode;
+        this.missing = mode == Mode.UPSERT ? missing : MissingRows.KEEP;
+        this.hierarchyChecks = hierarchyChecks;
+        this.batchNumbers = batchNumbers;
+        this.batchBook = batchBook;
+    }
+
+    // Те же параметры для книги book пакета; numbers - номера всех книг пакета (null - проверки иерархии выключены)
+    public ImportOptions forBatchBook(ImportBatchNumbers numbers, int book) {
+        return new ImportOptions(mode, missing, hierarchyChecks, numbers, book);
+    }
+
+    public static ImportOptions of(String mode, String missing) {
+        return of(mode, missing, null);
+    }
+
+    // Разбор параметров запроса (mode=append|upsert, missing=keep|mark|delete, hierarchyChecks=true|false)
+    public static ImportOptions of(String mode, String missing, Boolean hierarchyChecks) {
+        try {
+            return new ImportOptions(
+                    mode == null || mode.isBlank() ? Mode.APPEND : Mode.valueOf(mode.trim().toUpperCase()),
+                    missing == null || missing.isBlank() ? MissingRows.KEEP : MissingRows.valueOf(missing.trim().toUpperCase()),
+                    hierarchyChecks, null, 0);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный режим импорта: mode=" + mode + ", missing=" + missing);
+        }
+    }
+
+    public Mode getMode() { return mode; }
+    public MissingRows getMissing() { return missing; }
+    public boolean isUpsert() { return mode == Mode.UPSERT; }
+    public Boolean getHierarchyChecks() { return hierarchyChecks; }
+    // Номера книг пакета (см. HierarchyImportCheck); null - одиночный импорт
+    public ImportBatchNumbers getBatchNumbers() { return batchNumbers; }
+    public int getBatchBook() { return batchBook; }
+}
@@ -0,0 +1,145 @@
+package kvo.order.service;
+
+import kvo.order.config.DivisionRegistry;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Конвейер импорта одного файла: чтение -> проверка -> запись.
+// Прочитанные строки собираются в окна; окно проверяется на пуле потоков частями,
+// пока читается следующее. Запись идёт строго в порядке строк файла, поэтому
+// сохранённые данные и список ошибок совпадают с последовательным импортом.
+public class ImportPipeline {
+    private static final int TASK_ROWS = 128;
+    private static final String DUPLICATE_MESSAGE = "|!дубль_номера";
+
+    private final IndicatorRowValidator validator;
+    private final DivisionRegistry divisions;
+    private final ExecutorService executor;
+    private final ImportBatchWriter writer;
+    private final int windowSize;
+    private final HierarchyImportCheck hierarchyCheck;
+
+    private List<ImportRow> window = new ArrayList<>();
+    private List<Future<List<RowValidation>>> inFlight = List.of();
+    // Число отклонённых строк по правилам (строка с несколькими ошибками учитывается в каждом правиле)
+    private final Map<ImportRule, Long> rejections = new EnumMap<>(ImportRule.class);
+
+    public ImportPipeline(IndicatorRowValidator validator, DivisionRegistry divisions,
+                          ExecutorService executor, ImportBatchWriter writer, int windowSize,
+                          HierarchyImportCheck hierarchyCheck) {
+        this.validator = validator;
+        this.divisions = divisions;
+        this.executor = executor;
+        this.writer = writer;
+        this.windowSize = Math.max(TASK_ROWS, windowSize);
+        this.hierarchyCheck = hierarchyCheck;
+    }
+
+    public void accept(ImportRow row) {
+        window.add(row);
+        if (window.size() >= windowSize) {
+            submitWindow();
+        }
+    }
+
+    // Дожидается проверки всех строк и отдаёт их на запись
+    public void finish() {
+        submitWindow();
+        drain();
+        writer.flush();
+    }
+
+    private void submitWindow() {
+        // Предыдущее окно пишем до отправки нового: в работе не больше двух окон
+        drain();
+        if (window.isEmpty()) {
+            return;
+        }
+        List<ImportRow> rows = window;
+        window = new ArrayList<>(windowSize);
+        List<Future<List<RowValidation>>> futures = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += TASK_ROWS) {
+            List<ImportRow> part = rows.subList(from, Math.min(rows.size(), from + TASK_ROWS));
+            futures.add(executor.submit(() -> validateAll(part)));
+        }
+        inFlight = futures;
+    }
+
+    private List<RowValidation> validateAll(List<ImportRow> rows) {
+        List<RowValidation> results = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            results.add(validator.validate(row, divisions));
+        }
+        return results;
+    }
+
+    private void drain() {
+        try {
+            for (Future<List<RowValidation>> future : inFlight) {
+                for (RowValidation result : future.get()) {
+                    write(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new IllegalStateException("Импорт прерван", e);
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            inFlight = List.of();
+        }
+    }
+
+    private void write(RowValidation result) {
+        if (result == null) {
+            return; // строка заголовка
+        }
+        String errorMessage = result.getErrorMessage();
+        Set<ImportRule> rules = result.getRules();
+        // Проверки иерархии зависят от предыдущих строк, поэтому выполняются здесь, в порядке файла
+        if (hierarchyCheck != null) {
+            Set<ImportRule> hierarchyRules = EnumSet.noneOf(ImportRule.class);
+            String hierarchyError = hierarchyCheck.check(result.getIndicator().getNumber(), hierarchyRules);
+            if (hierarchyError != null) {
+                errorMessage = errorMessage == null ? hierarchyError : errorMessage + hierarchyError;
+                hierarchyRules.addAll(rules);
+                rules = hierarchyRules;
+            }
+        }
+        // UPSERT: повтор номера в файле - дубль, даже без проверок иерархии
+        if (!rules.contains(ImportRule.DUPLICATE_NUMBER) && writer.isRepeatedNumber(result.getIndicator().getNumber())) {
+            errorMessage = errorMessage == null ? DUPLICATE_MESSAGE : errorMessage + DUPLICATE_MESSAGE;
+            Set<ImportRule> duplicateRules = EnumSet.of(ImportRule.DUPLICATE_NUMBER);
+            duplicateRules.addAll(rules);
+            rules = duplicateRules;
+        }
+        if (errorMessage == null) {
+            writer.addIndicator(result.getIndicator());
+        } else {
+            writer.addError(result.getIndicator(), errorMessage);
+            rules.forEach(rule -> rejections.merge(rule, 1L, Long::sum));
+        }
+    }
+
+    public Map<ImportRule, Long> getRejections() {
+        return rejections;
+    }
+
+    private void cancel() {
+        inFlight.forEach(future -> future.cancel(true));
+    }
+}
@@ -0,0 +1,8 @@
+package kvo.order.service;
+
+// Ход импорта: вызывается после фиксации каждой пачки строк
+public interface ImportProgress {
+    ImportProgress NONE = (processedRows, validRows, errorRows) -> { };
+
+    void update(long processedRows, long validRows, long errorRows);
+}
@@ -0,0 +1,60 @@
+package kvo.order.service;
+
+import java.util.Map;
+
+// Итог импорта одного файла
+public class ImportResult {
+    private final boolean success;
+    private final long validRows;
+    private final long errorRows;
+    private final long durationMs;
+    private final Map<ImportRule, Long> rejections;
+    private final long inserted;
+    private final long updated;
+    private final long unchanged;
+    private final long marked;
+    private final long removed;
+
+    public ImportResult(boolean success, long validRows, long errorRows, long durationMs,
+                        Map<ImportRule, Long> rejections) {
+        this(success, validRows, errorRows, durationMs, rejections, validRows, 0, 0, 0, 0);
+    }
+
+    // Итог импорта UPSERT: validRows = inserted + updated + unchanged
+    public ImportResult(boolean success, long validRows, long errorRows, long durationMs,
+                        Map<ImportRule, Long> rejections, long inserted, long updated, long unchanged,
+                        long marked, long removed) {
+        this.success = success;
+        this.validRows = validRows;
+        this.errorRows = errorRows;
+        this.durationMs = durationMs;
+        this.rejections = rejections;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.marked = marked;
+        this.removed = removed;
+    }
+
+    public static ImportResult rejected(long durationMs) {
+        return new ImportResult(false, 0, 0, durationMs, Map.of());
+    }
+
+    public boolean isSuccess() { return success; }
+    public long getValidRows() { return validRows; }
+    public long getErrorRows() { return errorRows; }
+    public long getTotalRows() { return validRows + errorRows; }
+    public long getDurationMs() { return durationMs; }
+    // Отклонённые строки по правилам проверки
+    public Map<ImportRule, Long> getRejections() { return rejections; }
+    public long getInserted() { return inserted; }
+    public long getUpdated() { return updated; }
+    public long getUnchanged() { return unchanged; }
+    // Индикаторы, которых нет в файле: помечены (missing=MARK) или удалены (missing=DELETE)
+    public long getMarked() { return marked; }
+    public long getRemoved() { return removed; }
+
+    public double getRowsPerSecond() {
+        return durationMs > 0 ? getTotalRows() * 1000.0 / durationMs : getTotalRows();
+    }
+}
@@ -0,0 +1,28 @@
+package kvo.order.service;
+
+// Строка листа "СВОД", уже декодированная в строки (независимо от способа чтения: DOM или SAX)
+public class ImportRow {
+    public static final int COLUMN_COUNT = 12;
+
+    private final int rowNum;
+    private final String[] values;
+
+    public ImportRow(int rowNum, String[] values) {
+        this.rowNum = rowNum;
+        this.values = values;
+    }
+
+    // Номер строки (с нуля, как Row.getRowNum())
+    public int getRowNum() { return rowNum; }
+
+    // Значение ячейки или "" если ячейки нет (аналог getCellValue)
+    public String cell(int column) {
+        String value = raw(column);
+        return value == null ? "" : value;
+    }
+
+    // Значение ячейки или null если ячейки нет (аналог getFormattedDateCellValue)
+    public String raw(int column) {
+        return column < values.length ? values[column] : null;
+    }
+}
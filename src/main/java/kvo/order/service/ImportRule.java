@@ -0,0 +1,25 @@
+package kvo.order.service;
+
+// Правила проверки строки импорта; по ним считаются отклонённые строки (метрика order.import.rejections)
+public enum ImportRule {
+    NUMBER_EMPTY,
+    NUMBER_FORMAT,
+    NUMBER_STRUCTURE,   // Раздел только с корневым номером и наоборот
+    STRUCTURE,
+    LEVEL,
+    GOAL,
+    DEADLINE_START,
+    DEADLINE_END,
+    COORDINATOR,
+    DIVISION,
+    OWNER,
+    RESPONSIBLES,
+    ADDITIONAL_RESPONSIBLES,
+    DUPLICATE_NUMBER,
+    MISSING_PARENT;
+
+    // Значение тега метрики
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,107 @@
+package kvo.order.service;
+
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Правка строки из формы: поле JSON -> геттер/сеттер сущности. Меняются только переданные поля,
+// и только если значение отличается - остальные колонки не попадают в UPDATE (@DynamicUpdate)
+final class IndicatorEdits {
+    private static final Map<String, Field<TargetIndicator>> INDICATOR_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, Field<ErrorIndicator>> ERROR_FIELDS = new LinkedHashMap<>();
+
+    static {
+        INDICATOR_FIELDS.put("number", new Field<>(TargetIndicator::getNumber, TargetIndicator::setNumber));
+        INDICATOR_FIELDS.put("structure", new Field<>(indicator -> name(indicator.getStructure()),
+                (indicator, value) -> indicator.setStructure(structure(value))));
+        INDICATOR_FIELDS.put("level", new Field<>(TargetIndicator::getLevel, TargetIndicator::setLevel));
+        INDICATOR_FIELDS.put("goal", new Field<>(TargetIndicator::getGoal, TargetIndicator::setGoal));
+        INDICATOR_FIELDS.put("deadline", new Field<>(TargetIndicator::getDeadline, TargetIndicator::setDeadline));
+        INDICATOR_FIELDS.put("deadlineEnd", new Field<>(TargetIndicator::getDeadlineEnd, TargetIndicator::setDeadlineEnd));
+        INDICATOR_FIELDS.put("coordinator", new Field<>(TargetIndicator::getCoordinator, TargetIndicator::setCoordinator));
+        INDICATOR_FIELDS.put("divisions", new Field<>(TargetIndicator::getDivisions, TargetIndicator::setDivisions));
+        INDICATOR_FIELDS.put("owner", new Field<>(TargetIndicator::getOwner, TargetIndicator::setOwner));
+        INDICATOR_FIELDS.put("responsibles", new Field<>(TargetIndicator::getResponsibles, TargetIndicator::setResponsibles));
+        INDICATOR_FIELDS.put("additionalResponsibles",
+                new Field<>(TargetIndicator::getAdditionalResponsibles, TargetIndicator::setAdditionalResponsibles));
+        INDICATOR_FIELDS.put("business", new Field<>(TargetIndicator::getBusiness, TargetIndicator::setBusiness));
+
+        ERROR_FIELDS.put("number", new Field<>(ErrorIndicator::getNumber, ErrorIndicator::setNumber));
+        ERROR_FIELDS.put("structure", new Field<>(error -> name(error.getStructure()),
+                (error, value) -> error.setStructure(structure(value))));
+        ERROR_FIELDS.put("level", new Field<>(ErrorIndicator::getLevel, ErrorIndicator::setLevel));
+        ERROR_FIELDS.put("goal", new Field<>(ErrorIndicator::getGoal, ErrorIndicator::setGoal));
+        ERROR_FIELDS.put("deadline", new Field<>(ErrorIndicator::getDeadline, ErrorIndicator::setDeadline));
+        ERROR_FIELDS.put("deadlineEnd", new Field<>(ErrorIndicator::getDeadlineEnd, ErrorIndicator::setDeadlineEnd));
+        ERROR_FIELDS.put("coordinator", new Field<>(ErrorIndicator::getCoordinator, ErrorIndicator::setCoordinator));
+        ERROR_FIELDS.put("divisions", new Field<>(ErrorIndicator::getDivisions, ErrorIndicator::setDivisions));
+        ERROR_FIELDS.put("owner", new Field<>(ErrorIndicator::getOwner, ErrorIndicator::setOwner));
+        ERROR_FIELDS.put("responsibles", new Field<>(ErrorIndicator::getResponsibles, ErrorIndicator::setResponsibles));
+        ERROR_FIELDS.put("additionalResponsibles",
+                new Field<>(ErrorIndicator::getAdditionalResponsibles, ErrorIndicator::setAdditionalResponsibles));
+        ERROR_FIELDS.put("business", new Field<>(ErrorIndicator::getBusiness, ErrorIndicator::setBusiness));
+        ERROR_FIELDS.put("errorMessage", new Field<>(ErrorIndicator::getErrorMessage, ErrorIndicator::setErrorMessage));
+    }
+
+    private IndicatorEdits() {
+    }
+
+    // Возвращает имена изменившихся полей. Неизвестное поле - IllegalArgumentException до любых изменений
+    static List<String> apply(TargetIndicator indicator, Map<String, String> values) {
+        return apply(INDICATOR_FIELDS, indicator, values);
+    }
+
+    static List<String> apply(ErrorIndicator error, Map<String, String> values) {
+        return apply(ERROR_FIELDS, error, values);
+    }
+
+    private static <T> List<String> apply(Map<String, Field<T>> fields, T target, Map<String, String> values) {
+        for (String name : values.keySet()) {
+            if (!fields.containsKey(name)) {
+                throw new IllegalArgumentException("Поле нельзя изменить: " + name);
+            }
+        }
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            Field<T> field = fields.get(value.getKey());
+            if (!Objects.equals(field.getter.apply(target), value.getValue())) {
+                field.setter.accept(target, value.getValue());
+                changed.add(value.getKey());
+            }
+        }
+        return changed;
+    }
+
+    // Структура по имени константы, как её отдаёт /data ("ЦЕЛЬ", "EMPTY")
+    private static TargetIndicator.Structure structure(String value) {
+        if (value == null || value.isEmpty()) {
+            return TargetIndicator.Structure.EMPTY;
+        }
+        try {
+            return TargetIndicator.Structure.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестная структура: " + value);
+        }
+    }
+
+    private static String name(TargetIndicator.Structure structure) {
+        return structure == null ? null : structure.name();
+    }
+
+    private static class Field<T> {
+        private final Function<T, String> getter;
+        private final BiConsumer<T, String> setter;
+
+        Field(Function<T, String> getter, BiConsumer<T, String> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
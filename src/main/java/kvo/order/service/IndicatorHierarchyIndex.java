@@ -0,0 +1,285 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Дерево номеров индикаторов в памяти ("1." -> "1.2." -> "1.2.3.").
+// Узлы адресуются ключом иерархии (TargetIndicator.hierarchyKeyOf): ключ родителя - ключ без последнего сегмента.
+// Поддерживается IndicatorService при каждой записи индикаторов.
+@Component
+public class IndicatorHierarchyIndex {
+    private static final Comparator<Node> CHILD_ORDER = Comparator
+            .comparing((Node node) -> node.key, TargetIndicator.NUMBER_COMPARATOR).thenComparing(node -> node.key);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Node> nodes = new HashMap<>();
+    // Корень дерева (ключ "") - не индикатор, только список узлов верхнего уровня
+    private final Node root = new Node("");
+
+    public void rebuild(Collection<Entry> all) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            nodes.clear();
+            root.children.clear();
+            all.forEach(this::putLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<TargetIndicator> indicators) {
+        lock.writeLock().lock();
+        try {
+            for (TargetIndicator indicator : indicators) {
+                putLocked(Entry.of(indicator));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        rebuild(List.of());
+    }
+
+    // Есть ли индикатор с таким номером
+    public boolean containsNumber(String number) {
+        String key = TargetIndicator.hierarchyKeyOf(number);
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(key);
+            return node != null && !node.ids.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Есть ли индикатор-родитель; для номеров верхнего уровня всегда true
+    public boolean parentExists(String number) {
+        String parentKey = TargetIndicator.parentHierarchyKeyOf(TargetIndicator.hierarchyKeyOf(number));
+        if (parentKey.isEmpty()) {
+            return true;
+        }
+        lock.readLock().lock();
+        try {
+            Node parent = nodes.get(parentKey);
+            return parent != null && !parent.ids.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Прямые потомки узла (null или пустой номер - верхний уровень)
+    public List<Map<String, Object>> children(String number) {
+        lock.readLock().lock();
+        try {
+            Node node = findNode(number);
+            if (node == null) {
+                return List.of();
+            }
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Node child : sortedChildren(node)) {
+                result.add(describe(child, false));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Поддерево узла: номера, id, структура и статус без обращения к БД
+    public Map<String, Object> subtree(String number) {
+        lock.readLock().lock();
+        try {
+            Node node = findNode(number);
+            return node == null ? null : describe(node, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Сводка по потомкам узла: количество, разбивка по структуре и статусу
+    public Map<String, Object> rollup(String number) {
+        lock.readLock().lock();
+        try {
+            Node node = findNode(number);
+            if (node == null) {
+                return null;
+            }
+            Map<String, Long> byStructure = new TreeMap<>();
+            Map<String, Long> byStatus = new TreeMap<>();
+            long descendants = 0;
+            Deque<Node> stack = new ArrayDeque<>(node.children.values());
+            while (!stack.isEmpty()) {
+                Node current = stack.pop();
+                for (Long id : current.ids) {
+                    Entry entry = entries.get(id);
+                    descendants++;
+                    byStructure.merge(entry.structure == null ? "" : entry.structure.name(), 1L, Long::sum);
+                    byStatus.merge(entry.status == null ? "" : entry.status, 1L, Long::sum);
+                }
+                stack.addAll(current.children.values());
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("number", node == root ? "" : displayNumber(node));
+            result.put("exists", node == root || !node.ids.isEmpty());
+            result.put("children", node.children.size());
+            result.put("descendants", descendants);
+            result.put("byStructure", byStructure);
+            result.put("byStatus", byStatus);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Node findNode(String number) {
+        if (number == null || number.isBlank()) {
+            return root;
+        }
+        String key = TargetIndicator.hierarchyKeyOf(number.trim());
+        return key.isEmpty() ? null : nodes.get(key);
+    }
+
+    private void putLocked(Entry entry) {
+        removeLocked(entry.id);
+        entries.put(entry.id, entry);
+        String key = TargetIndicator.hierarchyKeyOf(entry.number);
+        if (key.isEmpty()) {
+            return; // пустой или нечисловой номер в дерево не попадает
+        }
+        nodeFor(key).ids.add(entry.id);
+    }
+
+    private void removeLocked(Long id) {
+        Entry old = entries.remove(id);
+        if (old == null) {
+            return;
+        }
+        String key = TargetIndicator.hierarchyKeyOf(old.number);
+        Node node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        node.ids.remove(id);
+        // Убираем опустевшие узлы-заглушки вверх по цепочке
+        while (node != null && node != root && node.ids.isEmpty() && node.children.isEmpty()) {
+            nodes.remove(node.key);
+            Node parent = parentNode(node.key);
+            parent.children.remove(node.key);
+            node = parent;
+        }
+    }
+
+    // Узел по ключу; недостающие предки создаются как заглушки без индикаторов
+    private Node nodeFor(String key) {
+        Node node = nodes.get(key);
+        if (node != null) {
+            return node;
+        }
+        node = new Node(key);
+        nodes.put(key, node);
+        String parentKey = TargetIndicator.parentHierarchyKeyOf(key);
+        Node parent = parentKey.isEmpty() ? root : nodeFor(parentKey);
+        parent.children.put(key, node);
+        return node;
+    }
+
+    private Node parentNode(String key) {
+        String parentKey = TargetIndicator.parentHierarchyKeyOf(key);
+        return parentKey.isEmpty() ? root : nodes.get(parentKey);
+    }
+
+    // Потомки в порядке номеров ("1.2" раньше "1.10")
+    private Collection<Node> sortedChildren(Node node) {
+        List<Node> children = new ArrayList<>(node.children.values());
+        children.sort(CHILD_ORDER);
+        return children;
+    }
+
+    private Map<String, Object> describe(Node node, boolean recursive) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (node != root) {
+            result.put("number", displayNumber(node));
+            List<Map<String, Object>> indicators = new ArrayList<>();
+            for (Long id : node.ids) {
+                Entry entry = entries.get(id);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", entry.id);
+                item.put("number", entry.number);
+                item.put("structure", entry.structure);
+                item.put("status", entry.status);
+                indicators.add(item);
+            }
+            result.put("indicators", indicators);
+        }
+        if (recursive) {
+            List<Map<String, Object>> children = new ArrayList<>();
+            for (Node child : sortedChildren(node)) {
+                children.add(describe(child, true));
+            }
+            result.put("children", children);
+        } else {
+            result.put("childCount", node.children.size());
+        }
+        return result;
+    }
+
+    // Номер узла в виде "1.2.3." (восстанавливается из ключа, подходит и для заглушек)
+    private static String displayNumber(Node node) {
+        return node.key + ".";
+    }
+
+    // Данные индикатора, нужные дереву (без LOB-колонок)
+    public static class Entry {
+        private final Long id;
+        private final String number;
+        private final TargetIndicator.Structure structure;
+        private final String status;
+
+        public Entry(Long id, String number, TargetIndicator.Structure structure, String status) {
+            this.id = id;
+            this.number = number;
+            this.structure = structure;
+            this.status = status;
+        }
+
+        public static Entry of(TargetIndicator indicator) {
+            return new Entry(indicator.getId(), indicator.getNumber(), indicator.getStructure(), indicator.getStatus());
+        }
+    }
+
+    private static class Node {
+        private final String key;
+        private final Set<Long> ids = new LinkedHashSet<>();
+        private final Map<String, Node> children = new HashMap<>();
+
+        Node(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package kvo.order.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Метрики импорта, экспорта и размера данных (Micrometer, /actuator/prometheus).
+// Латентность /data и страницы - стандартная http.server.requests (гистограмма включена в application.properties).
+@Component
+public class IndicatorMetrics {
+    private final MeterRegistry registry;
+    private final Counter validRows;
+    private final Counter errorRows;
+    private final DistributionSummary rowsPerSecond;
+
+    public IndicatorMetrics(MeterRegistry registry, IndicatorReadModel readModel, HeavyOperationLimiter heavyOperations) {
+        this.registry = registry;
+        this.validRows = Counter.builder("order.import.rows").tag("result", "valid")
+                .description("Строки импорта, сохранённые как индикаторы").register(registry);
+        this.errorRows = Counter.builder("order.import.rows").tag("result", "error")
+                .description("Строки импорта, сохранённые как ошибки").register(registry);
+        this.rowsPerSecond = DistributionSummary.builder("order.import.throughput").baseUnit("rows/s")
+                .description("Скорость импорта файла").publishPercentileHistogram().register(registry);
+        // Размеры берутся из снимка модели чтения - без запросов к БД
+        Gauge.builder("order.indicators.size", readModel, model -> model.current().getIndicators().size())
+                .description("Число индикаторов").register(registry);
+        Gauge.builder("order.errors.size", readModel, model -> model.current().getErrors().size())
+                .description("Число строк с ошибками").register(registry);
+        Gauge.builder("order.snapshot.version", readModel, model -> model.current().getVersion())
+                .description("Версия снимка данных").register(registry);
+        Gauge.builder("order.heavy.available", heavyOperations, HeavyOperationLimiter::availablePermits)
+                .description("Свободные слоты для импорта/экспорта").register(registry);
+    }
+
+    public void recordImport(ImportResult result) {
+        importTimer(result.isSuccess() ? "success" : "rejected").record(result.getDurationMs(), TimeUnit.MILLISECONDS);
+        if (!result.isSuccess()) {
+            return;
+        }
+        validRows.increment(result.getValidRows());
+        errorRows.increment(result.getErrorRows());
+        indicatorChanges("inserted", result.getInserted());
+        indicatorChanges("updated", result.getUpdated());
+        indicatorChanges("unchanged", result.getUnchanged());
+        indicatorChanges("marked", result.getMarked());
+        indicatorChanges("removed", result.getRemoved());
+        rowsPerSecond.record(result.getRowsPerSecond());
+        for (Map.Entry<ImportRule, Long> rejection : result.getRejections().entrySet()) {
+            Counter.builder("order.import.rejections").tag("rule", rejection.getKey().tag())
+                    .description("Отклонённые строки по правилам проверки").register(registry)
+                    .increment(rejection.getValue());
+        }
+    }
+
+    // Импорт прервался исключением (файл не читается, ошибка БД)
+    public void recordImportFailure(long durationNanos) {
+        importTimer("failed").record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordExport(String type, long durationNanos, long bytes) {
+        Timer.builder("order.export.duration").tag("type", type)
+                .description("Время формирования XLSX").publishPercentileHistogram().register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("order.export.size").tag("type", type).baseUnit("bytes")
+                .description("Размер XLSX").register(registry)
+                .record(bytes);
+    }
+
+    // Что импорт сделал с индикаторами (в режиме append - только inserted)
+    private void indicatorChanges(String action, long count) {
+        if (count > 0) {
+            Counter.builder("order.import.indicators").tag("action", action)
+                    .description("Индикаторы, затронутые импортом").register(registry)
+                    .increment(count);
+        }
+    }
+
+    private Timer importTimer(String outcome) {
+        return Timer.builder("order.import.duration").tag("outcome", outcome)
+                .description("Время импорта файла").publishPercentileHistogram().register(registry);
+    }
+}
@@ -0,0 +1,189 @@
+package kvo.order.service;
+
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Модель чтения для страницы и /data: снимок публикуется через AtomicReference.
+// Читатели берут текущий снимок без блокировок и без обращения к БД;
+// записи IndicatorService применяют изменения к копии и публикуют новый снимок.
+@Component
+public class IndicatorReadModel {
+    private static final Comparator<TargetIndicator> INDICATOR_ORDER =
+            Comparator.comparing(TargetIndicator::getSortKey).thenComparing(TargetIndicator::getId);
+    private static final Comparator<ErrorIndicator> ERROR_ORDER = Comparator.comparing(ErrorIndicator::getId);
+
+    private final AtomicReference<IndicatorSnapshot> snapshot =
+            new AtomicReference<>(new IndicatorSnapshot(List.of(), List.of(), 0, Instant.now(), 0));
+    private volatile long lastFullRebuildMillis;
+    // Версия снимка живёт только в памяти и после перезапуска начинается заново:
+    // метка запуска отличает версии разных запусков
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    public IndicatorSnapshot current() {
+        return snapshot.get();
+    }
+
+    // Версия данных: растёт при каждой публикации изменений, уникальна между перезапусками
+    public String versionTag() {
+        return bootId + "." + current().getVersion();
+    }
+
+    // Полная пересборка (при старте)
+    public synchronized void rebuild(List<TargetIndicator> indicators, List<ErrorIndicator> errors) {
+        long started = System.nanoTime();
+        List<TargetIndicator> sortedIndicators = new ArrayList<>(indicators);
+        sortedIndicators.sort(INDICATOR_ORDER);
+        List<ErrorIndicator> sortedErrors = new ArrayList<>(errors);
+        sortedErrors.sort(ERROR_ORDER);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        lastFullRebuildMillis = millis;
+        snapshot.set(new IndicatorSnapshot(sortedIndicators, sortedErrors, current().getVersion() + 1, Instant.now(), millis));
+    }
+
+    // Инкрементальное обновление: изменённые строки вливаются в отсортированные списки текущего снимка
+    public synchronized void update(Changes changes) {
+        long started = System.nanoTime();
+        IndicatorSnapshot current = current();
+        List<TargetIndicator> indicators = apply(current.getIndicators(), changes.clearIndicators,
+                changes.savedIndicators, changes.removedIndicators, TargetIndicator::getId, INDICATOR_ORDER);
+        List<ErrorIndicator> errors = apply(current.getErrors(), changes.clearErrors,
+                changes.savedErrors, changes.removedErrors, ErrorIndicator::getId, ERROR_ORDER);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        snapshot.set(new IndicatorSnapshot(indicators, errors, current.getVersion() + 1, Instant.now(), millis));
+    }
+
+    private static <T> List<T> apply(List<T> current, boolean clear, Map<Long, T> saved, Set<Long> removed,
+                                     Function<T, Long> id, Comparator<T> order) {
+        if (!clear && saved.isEmpty() && removed.isEmpty()) {
+            return current;
+        }
+        List<T> added = new ArrayList<>(saved.values());
+        added.sort(order);
+        List<T> merged = new ArrayList<>(clear ? added.size() : current.size() + added.size());
+        int next = 0;
+        if (!clear) {
+            for (T item : current) {
+                Long itemId = id.apply(item);
+                if (removed.contains(itemId) || saved.containsKey(itemId)) {
+                    continue;
+                }
+                while (next < added.size() && order.compare(added.get(next), item) < 0) {
+                    merged.add(added.get(next++));
+                }
+                merged.add(item);
+            }
+        }
+        while (next < added.size()) {
+            merged.add(added.get(next++));
+        }
+        return merged;
+    }
+
+    // Состояние снимка для мониторинга
+    public Map<String, Object> status() {
+        IndicatorSnapshot current = current();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("version", current.getVersion());
+        status.put("bootId", bootId);
+        status.put("builtAt", current.getBuiltAt().toString());
+        status.put("ageMs", Duration.between(current.getBuiltAt(), Instant.now()).toMillis());
+        status.put("lastUpdateMs", current.getBuildMillis());
+        status.put("lastFullRebuildMs", lastFullRebuildMillis);
+        status.put("indicators", current.getIndicators().size());
+        status.put("errors", current.getErrors().size());
+        return status;
+    }
+
+    // Набор изменений одной записи
+    public static class Changes {
+        private final Map<Long, TargetIndicator> savedIndicators = new LinkedHashMap<>();
+        private final Set<Long> removedIndicators = new HashSet<>();
+        private boolean clearIndicators;
+        private final Map<Long, ErrorIndicator> savedErrors = new LinkedHashMap<>();
+        private final Set<Long> removedErrors = new HashSet<>();
+        private boolean clearErrors;
+        // Удаление по условию (удаление одним DELETE ... WHERE): id берутся из снимка при применении
+        private Predicate<TargetIndicator> removedIndicatorsIf;
+        private Predicate<ErrorIndicator> removedErrorsIf;
+
+        public Changes saveIndicators(Collection<TargetIndicator> indicators) {
+            indicators.forEach(indicator -> savedIndicators.put(indicator.getId(), indicator));
+            return this;
+        }
+
+        public Changes removeIndicators(Collection<Long> ids) {
+            removedIndicators.addAll(ids);
+            return this;
+        }
+
+        public Changes removeIndicatorsIf(Predicate<TargetIndicator> condition) {
+            removedIndicatorsIf = condition;
+            return this;
+        }
+
+        public Changes clearIndicators() {
+            clearIndicators = true;
+            return this;
+        }
+
+        public Changes saveErrors(Collection<ErrorIndicator> errors) {
+            errors.forEach(error -> savedErrors.put(error.getId(), error));
+            return this;
+        }
+
+        public Changes removeErrors(Collection<Long> ids) {
+            removedErrors.addAll(ids);
+            return this;
+        }
+
+        public Changes removeErrorsIf(Predicate<ErrorIndicator> condition) {
+            removedErrorsIf = condition;
+            return this;
+        }
+
+        public Changes clearErrors() {
+            clearErrors = true;
+            return this;
+        }
+
+        // Условия удаления -> id строк снимка. Вызывается при применении, когда снимок содержит
+        // все ранее зафиксированные записи (см. IndicatorService.publishChanges)
+        void resolveRemovals(IndicatorSnapshot snapshot) {
+            if (removedIndicatorsIf != null) {
+                snapshot.getIndicators().stream().filter(removedIndicatorsIf)
+                        .forEach(indicator -> removedIndicators.add(indicator.getId()));
+            }
+            if (removedErrorsIf != null) {
+                snapshot.getErrors().stream().filter(removedErrorsIf)
+                        .forEach(error -> removedErrors.add(error.getId()));
+            }
+        }
+
+        // Те же изменения с отсоединёнными копиями строк: снимок и индексы не делят объекты
+        // с сессией JPA и с кодом, который продолжает менять сущности после записи
+        public Changes detached() {
+            Changes copy = new Changes();
+            savedIndicators.forEach((id, indicator) -> copy.savedIndicators.put(id, indicator.copy()));
+            copy.removedIndicators.addAll(removedIndicators);
+            copy.clearIndicators = clearIndicators;
+            savedErrors.forEach((id, error) -> copy.savedErrors.put(id, error.copy()));
+            copy.removedErrors.addAll(removedErrors);
+            copy.clearErrors = clearErrors;
+            copy.removedIndicatorsIf = removedIndicatorsIf;
+            copy.removedErrorsIf = removedErrorsIf;
+            return copy;
+        }
+
+        public Collection<TargetIndicator> getSavedIndicators() { return savedIndicators.values(); }
+        public Set<Long> getRemovedIndicators() { return removedIndicators; }
+        public boolean isClearIndicators() { return clearIndicators; }
+    }
+}
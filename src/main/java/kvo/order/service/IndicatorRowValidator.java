@@ -0,0 +1,343 @@
+package kvo.order.service;
+
+import kvo.order.config.DivisionRegistry;
+import kvo.order.model.TargetIndicator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+
+// Правила проверки строк листа "СВОД"
+@Component
+public class IndicatorRowValidator {
+    private static final Logger log = LoggerFactory.getLogger(IndicatorRowValidator.class);
+    // Буфер текста ошибки: по одному на поток проверки, строка создаётся только для строк с ошибками
+    private static final ThreadLocal<StringBuilder> MESSAGE_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    // Проверка одной строки листа. Метод чистый: ничего не пишет, зависит только от строки
+    // и снимка справочника дивизионов, поэтому строки можно проверять параллельно. null - строка заголовка.
+    public RowValidation validate(ImportRow row, DivisionRegistry divisionRegistry) {
+        if (row.getRowNum() == 0 || row.getRowNum() == 1) return null; // Skip header
+        StringBuilder err_message = MESSAGE_BUFFER.get();
+        err_message.setLength(0);
+        boolean err = false;
+        EnumSet<ImportRule> rules = EnumSet.noneOf(ImportRule.class);
+        TargetIndicator indicator = new TargetIndicator();
+
+        String numberValue = row.cell(0);
+
+        if (numberValue == null || numberValue.trim().isEmpty()) {
+            err_message.append("Пустой номер в строке ").append(row.getRowNum() + 1).append("; ");
+            err = true;
+            rules.add(ImportRule.NUMBER_EMPTY);
+        } else if (!numberValue.endsWith(".")) {
+            err_message.append("!ожидается_число").append(row.getRowNum() + 1).append("; ");
+            err = true;
+            rules.add(ImportRule.NUMBER_FORMAT);
+        } else if (numberValue.indexOf(' ') != -1) {
+            err = true;
+            rules.add(ImportRule.NUMBER_FORMAT);
+            err_message.append("!ожидается_число").append(row.getRowNum() + 1).append("; ");
+        }
+        ;
+
+
+        // Номер из одних точек (".", "..") не содержит ни одной части
+        if (numberValue != null && !numberValue.trim().isEmpty()) {
+            if (ImportCells.segmentCount(numberValue, '.') == 0 || !ImportCells.isDottedNumber(numberValue)) {
+                err = true;
+                rules.add(ImportRule.NUMBER_FORMAT);
+                err_message.append("!ожидается_число");
+            }
+        }
+        indicator.setNumber(numberValue);
+        //Проверка нумерации
+        if (numberValue != null && !numberValue.trim().isEmpty()) {
+            String cell1Value = row.cell(1).trim();
+            if (ImportCells.isRootNumber(numberValue)) {
+                switch (cell1Value) {
+                    case "Подраздел", "Цель", "Подцель", "Задача", "Подзадача", "Мероприятие" -> {
+                        err = true;
+                        rules.add(ImportRule.NUMBER_STRUCTURE);
+                        err_message.append("|!ожидается_Раздел_а_не_").append(cell1Value);
+                    }
+                }
+            } else { //только "Раздел" имеет длину 1.
+                if (cell1Value.equals("Раздел")) {
+                    err = true;
+                    rules.add(ImportRule.NUMBER_STRUCTURE);
+                    err_message.append("|!ожидается_корневой_номер");
+                }
+            }
+        }
+        //Структура
+        String stringStructure = row.cell(1);
+
+        if (stringStructure.isEmpty() || stringStructure.trim().isEmpty()) {
+            err_message.append("Структура пустая (строка - ").append(row.getRowNum() + 1).append("); ");
+            indicator.setStructure(TargetIndicator.Structure.error);
+            err = true;
+            rules.add(ImportRule.STRUCTURE);
+        } else {
+            stringStructure = stringStructure.toUpperCase();
+            switch (stringStructure) {
+                case "МЕРОПРИЯТИЕ", "РАЗДЕЛ", "ПОДРАЗДЕЛ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                    try {
+                        indicator.setStructure(TargetIndicator.Structure.valueOf(stringStructure));
+                    } catch (Exception e) {
+                        log.error("Ошибка_структуры: {}", e.toString());
+                        err = true;
+                        rules.add(ImportRule.STRUCTURE);
+                        indicator.setStructure(TargetIndicator.Structure.error);
+                        err_message.append("Ошибка_структуры");
+                    }
+                }
+                default -> {
+                    err = true;
+                    rules.add(ImportRule.STRUCTURE);
+                    indicator.setStructure(TargetIndicator.Structure.error);
+                    err_message.append("|!структ");
+                }
+            }
+        }
+
+        // Уровень
+        try {
+            String dateValue = row.raw(2);
+            // Нет ячейки - parseInt(null) даёт NumberFormatException, как для нечислового уровня
+            if (!"Р".equalsIgnoreCase(dateValue)) {
+                if (Integer.parseInt(dateValue) > 3) {
+                    if (!stringStructure.equals("ПОДЗАДАЧА")) {
+                        err = true;
+                        rules.add(ImportRule.LEVEL);
+                        err_message.append("|!уровень_несоответствует_структуре");
+                        indicator.setLevel("ожидается Подзадача");
+                    }
+                }
+            }
+            if (dateValue != null) {
+                dateValue = dateValue.toUpperCase();
+            }
+            indicator.setLevel(dateValue);
+        } catch (IllegalArgumentException e) {
+            err = true;
+            rules.add(ImportRule.LEVEL);
+            err_message.append("|!уровень");
+            indicator.setLevel("Нет уровня");
+        }
+
+        // Цель
+        try {
+            String dateValue = row.raw(3);
+            if (dateValue == null) { //dateValue != null && dateValue.length() > 255
+                err = true;
+                rules.add(ImportRule.GOAL);
+                err_message.append("|!Нет цели NULL");
+            }
+            indicator.setGoal(dateValue);
+        } catch (IllegalArgumentException e) {
+            err = true;
+            rules.add(ImportRule.GOAL);
+            err_message.append("|!цель");
+            indicator.setGoal("Нет цели");
+        }
+
+        // Сроки старта
+        String dLine = row.cell(4);
+
+        //сроки для ...
+        String structure = Objects.requireNonNull(stringStructure);
+        if (!structure.isEmpty()) {  // Проверяем, не пустая ли строка
+            switch (structure.toUpperCase()) {
+                case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                    if (dLine == null || dLine.trim().isEmpty()) {
+                        err = true;
+                        rules.add(ImportRule.DEADLINE_START);
+                        err_message.append("|!датаСтарт");
+                    } else {
+                        indicator.setDeadline(dLine);
+                    }
+                }
+                default -> {
+                    indicator.setDeadline(dLine);
+                }
+            }
+        } else {
+            indicator.setDeadline(dLine);  // Для пустой структуры
+        }
+        // Сроки Окончания
+        String dLineEnd = row.cell(5);
+        String structureDeadLineEnd = Objects.requireNonNull(stringStructure);
+        if (!structureDeadLineEnd.isEmpty()) {  // Проверяем, не пустая ли строка
+            switch (structureDeadLineEnd.toUpperCase()) {
+                case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                    if (dLineEnd == null || dLineEnd.trim().isEmpty()) {
+                        err = true;
+                        rules.add(ImportRule.DEADLINE_END);
+                        err_message.append("|!датаИсполн");
+                    } else {
+                        // Нераспознанная дата - ошибка строки, а не исключение, прерывающее весь импорт
+                        LocalDate deadlineEnd = parseDate(dLineEnd);
+                        LocalDate baseDate = parseDate(dLine);
+                        if (deadlineEnd == null) {
+                            err = true;
+                            rules.add(ImportRule.DEADLINE_END);
+                            err_message.append("|!датаИсполн");
+                        } else if (baseDate == null) {
+                            if (rules.add(ImportRule.DEADLINE_START)) {
+                                err = true;
+                                err_message.append("|!датаСтарт");
+                            }
+                        } else if (deadlineEnd.isBefore(baseDate) || deadlineEnd.isEqual(baseDate)) {
+                            err = true;
+                            rules.add(ImportRule.DEADLINE_END);
+                            err_message.append("|!датаИсполн");
+                        }
+                        indicator.setDeadlineEnd(dLineEnd);
+                    }
+                }
+                default -> {
+                    indicator.setDeadlineEnd(dLineEnd);
+                }
+            }
+        } else {
+            indicator.setDeadlineEnd(dLineEnd);  // Для пустой структуры
+        }
+
+        // Координатор
+        String coord = row.cell(6);
+        int single_coord = 0;  // Число частей через ";" (как split)
+        if (coord != null && !coord.trim().isEmpty()) {
+            single_coord = ImportCells.segmentCount(coord, ';');
+        }
+        switch (structure) {
+            case "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                if (coord == null || coord.trim().isEmpty() || !validateEmails(coord)) {
+                    err = true;
+                    rules.add(ImportRule.COORDINATOR);
+                    err_message.append("|!коорд");
+                    indicator.setCoordinator("Нет координатора");
+                } else indicator.setCoordinator(coord);
+            }
+            case "РАЗДЕЛ", "ПОДРАЗДЕЛ" -> {
+                if (single_coord > 1) {
+                    err = true;
+                    rules.add(ImportRule.COORDINATOR);
+                    err_message.append("|!коорд-Один");
+                    indicator.setCoordinator(coord);
+                } else indicator.setCoordinator(coord);
+            }
+            default -> indicator.setCoordinator(coord);
+        }
+        // Дивизионы (несколько)
+        try {
+            String div = row.cell(7);
+            // Проверяем, есть ли в строке несколько дивизионов (Дивизионы обязательны для всех)
+            List<TargetIndicator.Division> divisions = divisionRegistry.parse(div);
+            switch (structure) {
+                case "МЕРОПРИЯТИЕ", "РАЗДЕЛ", "ПОДРАЗДЕЛ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                    if (div == null || div.trim().isEmpty()) {
+                        err = true;
+                        rules.add(ImportRule.DIVISION);
+                        err_message.append("Пустое значение дивизиона ").append(row.getRowNum() + 1).append("; ");
+                        indicator.setDivisions("");
+                    } else if (divisions.stream().anyMatch(d -> "error".equals(d.getDisplayName()))) {
+                        err = true;
+                        rules.add(ImportRule.DIVISION);
+                        indicator.setDivisions("error");
+                        err_message.append("|!див_некорректный");
+                    } else {
+                        indicator.setDivisions(TargetIndicator.Division.toString(divisions));
+                    }
+                }
+                default -> indicator.setDivisions(TargetIndicator.Division.toString(divisions));
+            }
+        } catch (Exception e) {
+            err = true;
+            rules.add(ImportRule.DIVISION);
+            indicator.setDivisions("");
+            err_message.append("|!див");
+        }
+
+        // Владелец
+        String owner = row.cell(8);
+        int single_owner = 0;  // Число частей через ";" (как split)
+        if (owner != null && !owner.trim().isEmpty()) {
+            single_owner = ImportCells.segmentCount(owner, ';');
+        }
+        switch (structure) {
+            case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
+                if (owner == null || owner.trim().isEmpty() || single_owner > 1) {
+                    err = true;
+                    rules.add(ImportRule.OWNER);
+                    err_message.append("|!влад");
+                    indicator.setOwner("Нет владельца");
+                } else indicator.setOwner(owner);
+            }
+            case "РАЗДЕЛ", "ПОДРАЗДЕЛ" -> {
+                if (single_owner > 1) {
+                    err = true;
+                    rules.add(ImportRule.OWNER);
+                    err_message.append("|!влад-Один");
+                    indicator.setOwner(owner);
+                } else {
+                    indicator.setOwner(owner);
+                }
+            }
+            default -> indicator.setOwner(owner);
+        }
+
+
+        // Соисполнители
+        String resp = row.cell(9);
+        if (!validateMultipleEmails(resp)) {
+            err = true;
+            rules.add(ImportRule.RESPONSIBLES);
+            err_message.append("|!Соисп.");
+            indicator.setResponsibles(resp);
+        } else {
+            indicator.setResponsibles(resp);
+        }
+
+        // Дополнительные ответственные
+        String addResp = row.cell(10);
+        if (!validateMultipleEmails(addResp)) {
+            err = true;
+            rules.add(ImportRule.ADDITIONAL_RESPONSIBLES);
+            err_message.append("|!доп_отв");
+        } else {
+            indicator.setAdditionalResponsibles(addResp);
+        }
+
+        // Бизнес
+        String business = row.cell(11);
+        if (business != null) {
+            indicator.setBusiness(business);
+        }
+        return new RowValidation(indicator, err ? err_message.toString() : null, rules);
+    }
+
+    // Дата "dd-MM-yyyy" или null, если строка не разбирается
+    private static LocalDate parseDate(String value) {
+        try {
+            return ImportCells.parseDate(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean validateMultipleEmails(String emails) {
+        if (emails == null || emails.isEmpty()) return true;
+        return ImportCells.isLoginSet(emails);
+    }
+
+    private boolean validateEmails(String emails) {
+        if (emails == null || emails.isEmpty()) return false;
+        return ImportCells.isLoginList(emails);
+    }
+}
@@ -0,0 +1,312 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Обратный индекс по тексту индикаторов: цель, владелец, координатор, ответственные, бизнес.
+// Термы - слова в нижнем регистре (ё = е), хранятся в TreeMap: поиск по префиксу - диапазон ключей.
+// Ранжирование BM25 с весами полей; совпадение по префиксу весит меньше точного.
+// Поддерживается IndicatorService при каждой записи индикаторов, как и IndicatorHierarchyIndex;
+// хранит те же объекты индикаторов, что снимок чтения, поэтому поиск не обращается к БД.
+@Component
+public class IndicatorSearchIndex {
+    private static final float GOAL_WEIGHT = 3f;
+    private static final float BUSINESS_WEIGHT = 2f;
+    private static final float PEOPLE_WEIGHT = 1f;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_FACTOR = 0.6;
+    // Сколько термов раскрывается по одному префиксу; короткие префиксы дальше не расширяются,
+    // и результат помечается как неполный (Result.truncated)
+    private static final int MAX_PREFIX_TERMS = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // терм -> (id индикатора -> взвешенная частота терма)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private double totalLength;
+
+    public void rebuild(Collection<TargetIndicator> indicators) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            indicators.forEach(this::putLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<TargetIndicator> indicators) {
+        lock.writeLock().lock();
+        try {
+            indicators.forEach(this::putLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            ids.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        rebuild(List.of());
+    }
+
+    // Поиск: каждое слово запроса должно встретиться (целиком или как начало слова) хотя бы в одном поле.
+    // Результат - limit лучших по релевантности, при равенстве - в порядке номеров.
+    // Слова обрабатываются от самого редкого: для остальных проверяются только уже найденные индикаторы
+    public Result search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokenize(query));
+        if (words.isEmpty()) {
+            return new Result(List.of(), 0, false);
+        }
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return new Result(List.of(), 0, false);
+            }
+            List<WordMatch> matches = new ArrayList<>();
+            boolean truncated = false;
+            for (String word : words) {
+                WordMatch match = match(word);
+                if (match.postings.isEmpty()) {
+                    return new Result(List.of(), 0, false);
+                }
+                matches.add(match);
+                truncated |= match.truncated;
+            }
+            matches.sort(Comparator.comparingLong(match -> match.size));
+            double averageLength = totalLength / documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            WordMatch rarest = matches.get(0);
+            for (int i = 0; i < rarest.postings.size(); i++) {
+                double weight = rarest.weights.get(i);
+                for (Map.Entry<Long, Float> posting : rarest.postings.get(i).entrySet()) {
+                    double score = weight * bm25(posting.getKey(), posting.getValue(), averageLength);
+                    scores.merge(posting.getKey(), score, Math::max);
+                }
+            }
+            for (WordMatch match : matches.subList(1, matches.size())) {
+                Iterator<Map.Entry<Long, Double>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<Long, Double> candidate = candidates.next();
+                    double best = 0;
+                    for (int i = 0; i < match.postings.size(); i++) {
+                        Float frequency = match.postings.get(i).get(candidate.getKey());
+                        if (frequency != null) {
+                            double score = match.weights.get(i) * bm25(candidate.getKey(), frequency, averageLength);
+                            best = Math.max(best, score);
+                        }
+                    }
+                    if (best > 0) {
+                        candidate.setValue(candidate.getValue() + best);
+                    } else {
+                        candidates.remove();
+                    }
+                }
+            }
+            return new Result(top(scores, Math.max(1, limit)), scores.size(), truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Термы индекса, начинающиеся со слова запроса, и их веса (idf, скидка за неполное совпадение)
+    private WordMatch match(String word) {
+        WordMatch match = new WordMatch();
+        for (Map.Entry<String, Map<Long, Float>> term
+                : postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            if (match.postings.size() == MAX_PREFIX_TERMS) {
+                match.truncated = true;
+                break;
+            }
+            Map<Long, Float> posting = term.getValue();
+            match.postings.add(posting);
+            match.weights.add((term.getKey().equals(word) ? 1.0 : PREFIX_FACTOR) * idf(posting.size()));
+            match.size += posting.size();
+        }
+        return match;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> top(Map<Long, Double> scores, int limit) {
+        Comparator<Hit> order = Comparator.comparingDouble(Hit::getScore).reversed()
+                .thenComparing(hit -> hit.sortKey)
+                .thenComparing(Hit::getId);
+        // Куча на limit элементов: худший из отобранных - в вершине
+        PriorityQueue<Hit> best = new PriorityQueue<>(order.reversed());
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            if (best.size() == limit && score.getValue() < best.peek().getScore()) {
+                continue;
+            }
+            Document document = documents.get(score.getKey());
+            best.add(new Hit(document.indicator, document.sortKey, score.getValue()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(order);
+        return result;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double bm25(Long id, float frequency, double averageLength) {
+        float length = documents.get(id).length;
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private void putLocked(TargetIndicator indicator) {
+        removeLocked(indicator.getId());
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = addField(frequencies, indicator.getGoal(), GOAL_WEIGHT)
+                + addField(frequencies, indicator.getBusiness(), BUSINESS_WEIGHT)
+                + addField(frequencies, indicator.getOwner(), PEOPLE_WEIGHT)
+                + addField(frequencies, indicator.getCoordinator(), PEOPLE_WEIGHT)
+                + addField(frequencies, indicator.getResponsibles(), PEOPLE_WEIGHT);
+        if (frequencies.isEmpty()) {
+            return;
+        }
+        String sortKey = Objects.toString(indicator.getSortKey(), "");
+        documents.put(indicator.getId(),
+                new Document(indicator, sortKey, length, frequencies.keySet().toArray(String[]::new)));
+        totalLength += length;
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(indicator.getId(), frequency));
+    }
+
+    private void removeLocked(Long id) {
+        Document old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        totalLength -= old.length;
+        for (String term : old.terms) {
+            Map<Long, Float> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, float weight) {
+        List<String> terms = tokenize(text);
+        terms.forEach(term -> frequencies.merge(term, weight, Float::sum));
+        return terms.size() * weight;
+    }
+
+    // Слова из букв и цифр в нижнем регистре; "GAZ\ivanov" -> [gaz, ivanov]
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                term.append(lower == 'ё' ? 'е' : lower);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    // Найденный индикатор (строка снимка, только для чтения) и его релевантность
+    public static class Hit {
+        private final TargetIndicator indicator;
+        private final String sortKey;
+        private final double score;
+
+        Hit(TargetIndicator indicator, String sortKey, double score) {
+            this.indicator = indicator;
+            this.sortKey = sortKey;
+            this.score = score;
+        }
+
+        public Long getId() { return indicator.getId(); }
+        public TargetIndicator getIndicator() { return indicator; }
+        public double getScore() { return score; }
+    }
+
+    // Лучшие совпадения и общее число найденных
+    public static class Result {
+        private final List<Hit> hits;
+        private final int total;
+        private final boolean truncated;
+
+        Result(List<Hit> hits, int total, boolean truncated) {
+            this.hits = hits;
+            this.total = total;
+            this.truncated = truncated;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        public int getTotal() { return total; }
+        // Префикс слова раскрылся не во все термы (MAX_PREFIX_TERMS): total и hits могут быть неполными
+        public boolean isTruncated() { return truncated; }
+    }
+
+    private static class WordMatch {
+        private final List<Map<Long, Float>> postings = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        private long size;
+        private boolean truncated;
+    }
+
+    // Индикатор из снимка (тот же объект, что в IndicatorReadModel) и его термы для удаления из индекса
+    private static class Document {
+        private final TargetIndicator indicator;
+        private final String sortKey;
+        private final float length;
+        private final String[] terms;
+
+        Document(TargetIndicator indicator, String sortKey, float length, String[] terms) {
+            this.indicator = indicator;
+            this.sortKey = sortKey;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+}
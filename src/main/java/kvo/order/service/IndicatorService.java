@@ -1,382 +1,341 @@
 package kvo.order.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import kvo.order.config.DivisionConfig;
 import kvo.order.model.ErrorIndicator;
 import kvo.order.model.TargetIndicator;
 import kvo.order.repository.ErrorIndicatorRepository;
+import kvo.order.repository.ErrorListItem;
+import kvo.order.repository.IndicatorImportKey;
+import kvo.order.repository.IndicatorListItem;
 import kvo.order.repository.TargetIndicatorRepository;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Service
 public class IndicatorService {
 
     private static final Logger log = LoggerFactory.getLogger(IndicatorService.class);
+    // Сколько id передаётся в один IN (...) при переносе ошибок и обработке отсутствующих строк
+    private static final int ID_CHUNK_SIZE = 1000;
+    // Дивизион в условии удаления - одно название, без разделителей списка
+    private static final Pattern DIVISION_NAME = Pattern.compile("[^\\s,;]+");
     @Autowired
     private TargetIndicatorRepository targetRepo;
 
     @Autowired
     private ErrorIndicatorRepository errorRepo;
 
-    private static final Pattern EMAIL_PATTERN = Pattern.compile("^GAZ\\\\[\\w.-]+$", Pattern.CASE_INSENSITIVE);
     @Autowired
     private DivisionConfig divisionConfig;
 
+    @Autowired
+    private XlsxStreamingReader streamingReader;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.streaming:true}")
+    private boolean streamingImport;
+
+    @Value("${app.import.batch-size:500}")
+    private int importBatchSize;
+
+    @Autowired
+    private IndicatorRowValidator rowValidator;
+
+    @Autowired
+    private ExecutorService importValidationExecutor;
+
+    @Value("${app.import.validation-window:2000}")
+    private int importValidationWindow;
+
+    @Autowired
+    private IndicatorHierarchyIndex hierarchyIndex;
+
+    @Autowired
+    private IndicatorReadModel readModel;
+
+    @Autowired
+    private IndicatorSearchIndex searchIndex;
+
+    // Проверки иерархии для импортов, в которых они не заданы явно (ImportOptions.hierarchyChecks)
+    @Value("${app.import.hierarchy-checks:false}")
+    private boolean hierarchyChecks;
+
+    @Value("${app.export.chunk-size:1000}")
+    private int exportChunkSize;
+
+    @Value("${app.export.row-window:200}")
+    private int exportRowWindow;
+
+    @Autowired
+    private IndicatorMetrics metrics;
+
+    @Autowired
+    private HeavyOperationLimiter heavyOperations;
+
+    // Порядок применения изменений к снимку и индексам (см. publishChanges)
+    private final ReentrantLock publishLock = new ReentrantLock();
+
     public boolean importFromXls(MultipartFile file) throws IOException {
-        final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            boolean err = false;
-            String sheetError = null;
-            StringBuilder err_message = new StringBuilder();
-            if (sheet.getSheetName() == null || !sheet.getSheetName().equals("СВОД")) {
-                sheetError = "! Ожидается лист 'СВОД', но найден '" + (sheet.getSheetName() != null ? sheet.getSheetName() : "null") + "'";
-                err_message.append(sheetError);
-                err = true; // Глобальная ошибка
-                return false;
-            }
-            if (sheet.getPhysicalNumberOfRows() > 3) {
-                for (Row row : sheet) {
-                    int leng_sb = err_message.length();
-                    err_message.delete(0, leng_sb);
-                    err = false;
-
-                    if (row.getRowNum() == 0 || row.getRowNum() == 1) continue; // Skip header
-                    TargetIndicator indicator = new TargetIndicator();
-
-                    String numberValue = getCellValue(row.getCell(0));
-
-                    if (numberValue == null || numberValue.trim().isEmpty()) {
-                        err_message.append("Пустой номер в строке ").append(row.getRowNum() + 1).append("; ");
-                        err = true;
-                    } else if (!numberValue.endsWith(".")) {
-                        err_message.append("!ожидается_число").append(row.getRowNum() + 1).append("; ");
-                        err = true;
-                    } else if (numberValue.indexOf(' ') != -1) {
-                        err = true;
-                        err_message.append("!ожидается_число").append(row.getRowNum() + 1).append("; ");
-                    }
-                    ;
-
-
-                    if (numberValue != null && !numberValue.trim().isEmpty()) {
-                        String[] numberParts = numberValue.split("\\.");
-                        for (String part : numberParts) {
-                            String trimmedPart = part.trim();
-                            if (!trimmedPart.isEmpty() && !trimmedPart.matches("\\d+")) {
-                                err = true;
-                                err_message.append("!ожидается_число");
-                                break;
-                            }
-                        }
-                    }
-                    indicator.setNumber(numberValue);
-                    //Проверка нумерации
-                    if (numberValue != null && !numberValue.trim().isEmpty()) {
-                        String[] parts = numberValue.split("\\.");
-                        String numberBeforeDot = parts[0].trim();
-                        String cell1Value = getCellValue(row.getCell(1)).trim();
-                        if (numberBeforeDot.matches("\\d+") && (parts.length == 1)) {
-                            switch (cell1Value) {
-                                case "Подраздел", "Цель", "Подцель", "Задача", "Подзадача", "Мероприятие" -> {
-                                    err = true;
-                                    err_message.append("|!ожидается_Раздел_а_не_").append(cell1Value);
-                                }
-                            }
-                        } else { //только "Раздел" имеет длину 1.
-                            if (cell1Value.equals("Раздел")) {
-                                err = true;
-                                err_message.append("|!ожидается_корневой_номер");
-                            }
-                        }
-                    }
-                    //Структура
-                    String stringStructure = getCellValue(row.getCell(1));
-
-                    if (stringStructure.isEmpty() || stringStructure.trim().isEmpty()) {
-                        err_message.append("Структура пустая (строка - ").append(row.getRowNum() + 1).append("); ");
-                        indicator.setStructure(TargetIndicator.Structure.error);
-                        err = true;
-                    } else {
-                        stringStructure = stringStructure.toUpperCase();
-                        switch (stringStructure) {
-                            case "МЕРОПРИЯТИЕ", "РАЗДЕЛ", "ПОДРАЗДЕЛ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                                try {
-                                    indicator.setStructure(TargetIndicator.Structure.valueOf(stringStructure));
-                                } catch (Exception e) {
-                                    log.error("Ошибка_структуры: {}", e.toString());
-                                    err = true;
-                                    indicator.setStructure(TargetIndicator.Structure.error);
-                                    err_message.append("Ошибка_структуры");
-                                }
-                            }
-                            default -> {
-                                err = true;
-                                indicator.setStructure(TargetIndicator.Structure.error);
-                                err_message.append("|!структ");
-                            }
-                        }
-                    }
+        return importWorkbook(file).isSuccess();
+    }
 
-                    // Уровень
-                    try {
-                        String dateValue = getFormattedDateCellValue(row.getCell(2));
-                        if (!dateValue.toUpperCase().equals("Р")) {
-                            if (Integer.parseInt(dateValue) > 3) {
-                                if (!stringStructure.equals("ПОДЗАДАЧА")) {
-                                    err = true;
-                                    err_message.append("|!уровень_несоответствует_структуре");
-                                    indicator.setLevel("ожидается Подзадача");
-                                }
-                            }
-                        }
-                        if (dateValue != null) {
-                            dateValue = dateValue.toUpperCase();
-                        }
-                        indicator.setLevel(dateValue);
-                    } catch (IllegalArgumentException e) {
-                        err = true;
-                        err_message.append("|!уровень");
-                        indicator.setLevel("Нет уровня");
-                    }
+    public ImportResult importWorkbook(MultipartFile file) throws IOException {
+        return importWorkbook(file, ImportOptions.APPEND);
+    }
 
-                    // Цель
-                    try {
-                        String dateValue = getFormattedDateCellValue(row.getCell(3));
-                        if (dateValue == null) { //dateValue != null && dateValue.length() > 255
-                            err = true;
-                            dateValue = dateValue.substring(0, 254);
-                            err_message.append("|!Нет цели NULL");
-                        }
-                        indicator.setGoal(dateValue);
-                    } catch (IllegalArgumentException e) {
-                        err = true;
-                        err_message.append("|!цель");
-                        indicator.setGoal("Нет цели");
-                    }
+    // Синхронный импорт из запроса: файл сохраняется во временный и импортируется с диска
+    public ImportResult importWorkbook(MultipartFile file, ImportOptions options) throws IOException {
+        Path tempFile = Files.createTempFile("order-import-", ".xlsx");
+        try {
+            file.transferTo(tempFile);
+            return importWorkbook(tempFile, file.getOriginalFilename(), options, ImportProgress.NONE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
 
-                    // Сроки старта
-                    String dLine = getCellValue(row.getCell(4));
-
-                    //сроки для ...
-                    String structure = Objects.requireNonNull(stringStructure);
-                    if (!structure.isEmpty()) {  // Проверяем, не пустая ли строка
-                        switch (structure.toUpperCase()) {
-                            case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                                if (dLine == null || dLine.trim().isEmpty()) {
-                                    err = true;
-                                    err_message.append("|!датаСтарт");
-                                } else {
-                                    indicator.setDeadline(dLine);
-                                }
-                            }
-                            default -> {
-                                indicator.setDeadline(dLine);
-                            }
-                        }
-                    } else {
-                        indicator.setDeadline(dLine);  // Для пустой структуры
-                    }
-                    // Сроки Окончания
-                    String dLineEnd = getCellValue(row.getCell(5));
-                    String structureDeadLineEnd = Objects.requireNonNull(stringStructure);
-                    if (!structureDeadLineEnd.isEmpty()) {  // Проверяем, не пустая ли строка
-                        switch (structureDeadLineEnd.toUpperCase()) {
-                            case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                                if (dLineEnd == null || dLineEnd.trim().isEmpty()) {
-                                    err = true;
-                                    err_message.append("|!датаИсполн");
-                                } else {
-                                    LocalDate deadlineEnd = LocalDate.parse(dLineEnd.trim(), DATE_FORMATTER);
-                                    LocalDate baseDate = LocalDate.parse(dLine.trim(), DATE_FORMATTER);
-                                    if (deadlineEnd.isBefore(baseDate) || deadlineEnd.isEqual(baseDate)) {
-                                        err = true;
-                                        err_message.append("|!датаИсполн");
-                                    }
-                                    indicator.setDeadlineEnd(dLineEnd);
-                                }
-                            }
-                            default -> {
-                                indicator.setDeadlineEnd(dLineEnd);
-                            }
-                        }
-                    } else {
-                        indicator.setDeadlineEnd(dLineEnd);  // Для пустой структуры
-                    }
+    // Импорт книги с диска (используется и фоновыми заданиями импорта); файл не удаляется
+    public ImportResult importWorkbook(Path file, String fileName, ImportOptions options, ImportProgress progress)
+            throws IOException {
+        return heavyOperations.run(() -> measureImport(file, fileName, options, progress));
+    }
 
-                    // Координатор
-                    String coord = getCellValue(row.getCell(6));
-                    String[] single_coord = new String[0];  // По умолчанию пустой массив
-                    if (coord != null && !coord.trim().isEmpty()) {
-                        single_coord = coord.split(";");
-                    }
-                    switch (structure) {
-                        case "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                            if (coord == null || coord.trim().isEmpty() || !validateEmails(coord)) {
-                                err = true;
-                                err_message.append("|!коорд");
-                                indicator.setCoordinator("Нет координатора");
-                            } else indicator.setCoordinator(coord);
-                        }
-                        case "РАЗДЕЛ", "ПОДРАЗДЕЛ" -> {
-                            if (single_coord.length > 1) {
-                                err = true;
-                                err_message.append("|!коорд-Один");
-                                indicator.setCoordinator(coord);
-                            } else indicator.setCoordinator(coord);
-                        }
-                        default -> indicator.setCoordinator(coord);
-                    }
-                    // Дивизионы (несколько)
-                    try {
-                        String div = getCellValue(row.getCell(7));
-                        // Проверяем, есть ли в строке несколько дивизионов (Дивизионы обязательны для всех)
-                        List<TargetIndicator.Division> divisions = TargetIndicator.Division.fromStringList(div, divisionConfig.getDivisions());
-                        switch (structure) {
-                            case "МЕРОПРИЯТИЕ", "РАЗДЕЛ", "ПОДРАЗДЕЛ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                                if (div == null || div.trim().isEmpty()) {
-                                    err = true;
-                                    err_message.append("Пустое значение дивизиона ").append(row.getRowNum() + 1).append("; ");
-                                    indicator.setDivisions("");
-                                } else if (divisions.stream().anyMatch(d -> "error".equals(d.getDisplayName()))) {
-                                    err = true;
-                                    indicator.setDivisions("error");
-                                    err_message.append("|!див_некорректный");
-                                } else {
-                                    indicator.setDivisions(TargetIndicator.Division.toString(divisions));
-                                }
-                            }
-                            default -> indicator.setDivisions(TargetIndicator.Division.toString(divisions));
-                        }
-                    } catch (Exception e) {
-                        err = true;
-                        indicator.setDivisions("");
-                        err_message.append("|!див");
-                    }
+    private ImportResult measureImport(Path file, String fileName, ImportOptions options, ImportProgress progress)
+            throws IOException {
+        long started = System.nanoTime();
+        try {
+            ImportResult result = runImport(file, fileName, options, progress, started);
+            metrics.recordImport(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            metrics.recordImportFailure(System.nanoTime() - started);
+            throw e;
+        }
+    }
 
-                    // Владелец
-                    String owner = getCellValue(row.getCell(8));
-                    String[] single_owner = new String[0];  // По умолчанию пустой массив
-                    if (owner != null && !owner.trim().isEmpty()) {
-                        single_owner = owner.split(";");
-                    }
-                    switch (structure) {
-                        case "МЕРОПРИЯТИЕ", "ЦЕЛЬ", "ПОДЦЕЛЬ", "ЗАДАЧА", "ПОДЗАДАЧА" -> {
-                            if (owner == null || owner.trim().isEmpty() || single_owner.length > 1) {
-                                err = true;
-                                err_message.append("|!влад");
-                                indicator.setOwner("Нет владельца");
-                            } else indicator.setOwner(owner);
-                        }
-                        case "РАЗДЕЛ", "ПОДРАЗДЕЛ" -> {
-                            if (single_owner.length > 1) {
-                                err = true;
-                                err_message.append("|!влад-Один");
-                                indicator.setOwner(owner);
-                            } else {
-                                indicator.setOwner(owner);
-                            }
-                        }
-                        default -> indicator.setOwner(owner);
-                    }
+    public boolean isHierarchyChecks(ImportOptions options) {
+        return options.getHierarchyChecks() != null ? options.getHierarchyChecks() : hierarchyChecks;
+    }
 
+    private ImportResult runImport(Path file, String fileName, ImportOptions options, ImportProgress progress,
+                                   long started) throws IOException {
+        long[] saved = {0, 0};
+        ImportBatchWriter writer = new ImportBatchWriter(targetRepo, errorRepo, transactionTemplate, entityManager,
+                importBatchSize, options.isUpsert(), (indicators, errors, removedErrors, validRows) -> {
+                    publishChanges(new IndicatorReadModel.Changes().saveIndicators(indicators)
+                            .removeErrors(removedErrors).saveErrors(errors));
+                    saved[0] += validRows;
+                    saved[1] += errors.size();
+                    progress.update(saved[0] + saved[1], saved[0], saved[1]);
+                });
+        // Снимок дивизионов один на весь файл
+        ImportPipeline pipeline = new ImportPipeline(rowValidator, divisionConfig.getRegistry(),
+                importValidationExecutor, writer, importValidationWindow,
+                isHierarchyChecks(options) ? new HierarchyImportCheck(hierarchyIndex, options.isUpsert(),
+                        options.getBatchNumbers(), options.getBatchBook()) : null);
+        boolean success = streamingImport ? importFromXlsStreaming(file, pipeline) : importFromXlsWorkbook(file, pipeline);
+        pipeline.finish();
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        if (!success) {
+            return ImportResult.rejected(durationMs);
+        }
+        if (!options.isUpsert()) {
+            ImportResult result = new ImportResult(true, writer.getInsertedIndicators(), writer.getInsertedErrors(),
+                    durationMs, pipeline.getRejections());
+            log.info("Импорт {}: строк {} (валидных {}, ошибок {}) за {} мс, {} строк/с",
+                    fileName, result.getTotalRows(), result.getValidRows(), result.getErrorRows(),
+                    result.getDurationMs(), String.format("%.1f", result.getRowsPerSecond()));
+            return result;
+        }
+        long missing = applyMissingRows(options.getMissing(), writer.getSeenKeys());
+        durationMs = (System.nanoTime() - started) / 1_000_000;
+        ImportResult result = new ImportResult(true, writer.getValidRows(), writer.getInsertedErrors(), durationMs,
+                pipeline.getRejections(), writer.getInsertedIndicators(), writer.getUpdatedIndicators(),
+                writer.getUnchangedIndicators(),
+                options.getMissing() == ImportOptions.MissingRows.MARK ? missing : 0,
+                options.getMissing() == ImportOptions.MissingRows.DELETE ? missing : 0);
+        log.info("Импорт {} (upsert): строк {} (новых {}, изменено {}, без изменений {}, ошибок {}), "
+                        + "отсутствующих в файле {} ({}) за {} мс",
+                fileName, result.getTotalRows(), result.getInserted(), result.getUpdated(), result.getUnchanged(),
+                result.getErrorRows(), missing, options.getMissing(), result.getDurationMs());
+        return result;
+    }
 
-                    // Соисполнители
-                    String resp = getCellValue(row.getCell(9));
-                    if (!validateMultipleEmails(resp)) {
-                        err = true;
-                        err_message.append("|!Соисп.");
-                        indicator.setResponsibles(resp);
-                    } else {
-                        indicator.setResponsibles(resp);
-                    }
+    // Индикаторы, номеров которых нет в файле UPSERT-импорта: помечаются статусом missing или удаляются.
+    // Ключи читаются одним запросом без LOB-полей, изменения идут порциями по ID_CHUNK_SIZE id
+    private long applyMissingRows(ImportOptions.MissingRows missing, Set<String> seenKeys) {
+        if (missing == ImportOptions.MissingRows.KEEP) {
+            return 0;
+        }
+        List<Long> ids = targetRepo.findAllImportKeys().stream()
+                .filter(key -> !seenKeys.contains(key.getNumberKey()))
+                .filter(key -> missing == ImportOptions.MissingRows.DELETE
+                        || !ImportOptions.MISSING_STATUS.equals(key.getStatus()))
+                .map(IndicatorImportKey::getId)
+                .toList();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                if (missing == ImportOptions.MissingRows.DELETE) {
+                    targetRepo.deleteAllByIdInBatch(chunk);
+                    publishChanges(new IndicatorReadModel.Changes().removeIndicators(chunk));
+                } else {
+                    List<TargetIndicator> marked = targetRepo.findAllById(chunk);
+                    marked.forEach(indicator -> indicator.setStatus(ImportOptions.MISSING_STATUS));
+                    entityManager.flush();
+                    entityManager.clear();
+                    publishChanges(new IndicatorReadModel.Changes().saveIndicators(marked));
+                }
+            });
+        }
+        return ids.size();
+    }
 
-                    // Дополнительные ответственные
-                    String addResp = getCellValue(row.getCell(10));
-                    if (!validateMultipleEmails(addResp)) {
-                        err = true;
-                        err_message.append("|!доп_отв");
-                    } else {
-                        indicator.setAdditionalResponsibles(addResp);
+    // Номера книг пакета до начала импорта (books - в порядке пакета, null - книга пропущена).
+    // Берутся те же строки, что получила бы проверка иерархии: лист "СВОД" больше чем из 3 строк, без строк
+    // заголовка. Книга, которую импорт отклонит или не сможет прочитать, номеров не даёт
+    public ImportBatchNumbers collectBatchNumbers(List<Path> books) {
+        ImportBatchNumbers numbers = new ImportBatchNumbers();
+        for (int book = 0; book < books.size(); book++) {
+            Path file = books.get(book);
+            if (file == null) {
+                continue;
+            }
+            List<String> bookNumbers = new ArrayList<>();
+            boolean[] sheetAccepted = {false};
+            int[] rows = {0};
+            try {
+                streamingReader.readFirstSheet(file.toFile(), new XlsxStreamingReader.RowHandler() {
+                    @Override
+                    public boolean startSheet(String sheetName) {
+                        sheetAccepted[0] = "СВОД".equals(sheetName);
+                        return sheetAccepted[0];
                     }
 
-                    // Бизнес
-                    String business = getCellValue(row.getCell(11));
-                    if (business != null) {
-                        indicator.setBusiness(business);
-                    }
-                    if (sheetError != null) {
-                        err_message.insert(0, sheetError + "\n"); // Добавляем в начало для приоритета
-                    }
-                    if (err) {
-                        saveError(indicator, err_message.toString());
-                    } else {
-                        targetRepo.save(indicator);
+                    @Override
+                    public void row(ImportRow row) {
+                        rows[0]++;
+                        if (row.getRowNum() > 1) {
+                            bookNumbers.add(row.cell(0));
+                        }
                     }
+                });
+            } catch (IOException e) {
+                log.debug("Номера книги {} не прочитаны: {}", file, e.getMessage());
+                continue;
+            }
+            if (sheetAccepted[0] && rows[0] > 3) {
+                numbers.addBook(book, bookNumbers, hierarchyIndex::containsNumber);
+            }
+        }
+        return numbers;
+    }
+
+    // Потоковый импорт: лист читается SAX-ом, строки по одной передаются в конвейер
+    private boolean importFromXlsStreaming(Path file, ImportPipeline pipeline) throws IOException {
+        boolean[] sheetAccepted = {false};
+        // Первые строки придерживаем, чтобы как в DOM-режиме не сохранять ничего для листа из <= 3 строк
+        List<ImportRow> pending = new ArrayList<>();
+        boolean[] flushed = {false};
+        streamingReader.readFirstSheet(file.toFile(), new XlsxStreamingReader.RowHandler() {
+            @Override
+            public boolean startSheet(String sheetName) {
+                sheetAccepted[0] = "СВОД".equals(sheetName);
+                if (!sheetAccepted[0]) {
+                    log.warn("! Ожидается лист 'СВОД', но найден '{}'", sheetName);
                 }
-            } else {
-                sheetError = "! Лист 'СВОД' пуст";
-                err_message.append(sheetError);
-                err = true;// Глобальная ошибка}
-                return false;
+                return sheetAccepted[0];
             }
+
+            @Override
+            public void row(ImportRow row) {
+                if (flushed[0]) {
+                    pipeline.accept(row);
+                    return;
+                }
+                pending.add(row);
+                if (pending.size() > 3) {
+                    flushed[0] = true;
+                    pending.forEach(pipeline::accept);
+                    pending.clear();
+                }
+            }
+        });
+        if (!sheetAccepted[0]) {
+            return false;
+        }
+        if (!flushed[0]) {
+            log.warn("! Лист 'СВОД' пуст");
+            return false;
         }
         return true;
     }
 
-    private boolean validateMultipleEmails(String emails) {
-        if (emails == null || emails.isEmpty()) return true;
-        String[] emailArray = emails.split("[,\\s;]+");
-        for (String email : emailArray) {
-            String trimmedEmail = email.trim();
-            if (!trimmedEmail.isEmpty() && !isValidEmail(trimmedEmail)) {
+    // Импорт через полную DOM-модель книги (режим app.import.streaming=false)
+    private boolean importFromXlsWorkbook(Path file, ImportPipeline pipeline) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(file.toFile(), null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            if (sheet.getSheetName() == null || !sheet.getSheetName().equals("СВОД")) {
+                log.warn("! Ожидается лист 'СВОД', но найден '{}'", sheet.getSheetName());
+                return false;
+            }
+            if (sheet.getPhysicalNumberOfRows() > 3) {
+                for (Row row : sheet) {
+                    pipeline.accept(toImportRow(row));
+                }
+            } else {
+                log.warn("! Лист 'СВОД' пуст");
                 return false;
             }
         }
         return true;
     }
 
-    private boolean isValidEmail(String email) {
-        if (email == null || email.isEmpty()) {
-            return true;  // Возвращаем true для null или пустой строки
+    // Строка листа из DOM-модели; доступна в пакете для сверки с XlsxStreamingReader
+    static ImportRow toImportRow(Row row) {
+        String[] values = new String[ImportRow.COLUMN_COUNT];
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.getCell(i);
+            values[i] = cell == null ? null : getCellValue(cell);
         }
-        return EMAIL_PATTERN.matcher(email).matches();
-    }
-
-    private void saveError(TargetIndicator indicator, String reason) {
-        ErrorIndicator error = new ErrorIndicator();
-        error.setNumber(indicator.getNumber());
-        error.setStructure(indicator.getStructure());
-        error.setLevel(indicator.getLevel());
-        error.setGoal(indicator.getGoal());
-        error.setDeadline(indicator.getDeadline());
-        error.setDeadlineEnd(indicator.getDeadlineEnd());
-        error.setDivisions(indicator.getDivisions());
-        error.setCoordinator(indicator.getCoordinator());
-        error.setOwner(indicator.getOwner());
-        error.setResponsibles(indicator.getResponsibles());
-        error.setAdditionalResponsibles(indicator.getAdditionalResponsibles());
-        error.setBusiness(indicator.getBusiness());
-        error.setErrorMessage(reason);
-        errorRepo.save(error);
+        return new ImportRow(row.getRowNum(), values);
     }
 
-    private String getCellValue(Cell cell) {
+    private static String getCellValue(Cell cell) {
         if (cell == null) {
             return "";
         }
@@ -385,32 +344,19 @@ public class IndicatorService {
                 return cell.getStringCellValue();
             }
             case NUMERIC -> {
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy");
-                    return dateFormat.format(cell.getDateCellValue());
-                } else {
-                    double numericValue = cell.getNumericCellValue();
-                    if (numericValue == Math.floor(numericValue)) {
-                        return String.valueOf((int) numericValue);
-                    } else {
-                        return String.valueOf(numericValue);
-                    }
-                }
+                return getNumericCellValue(cell);
             }
             case BOOLEAN -> {
                 return String.valueOf(cell.getBooleanCellValue());
             }
             case FORMULA -> {
-                try {
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy");
-                        return dateFormat.format(cell.getDateCellValue());
-                    } else {
-                        return cell.getStringCellValue().trim();
-                    }
-                } catch (Exception e) {
-                    return cell.getCellFormula();
-                }
+                // Значение формулы - сохранённый в книге результат, а не текст формулы (как в XlsxStreamingReader)
+                return switch (cell.getCachedFormulaResultType()) {
+                    case NUMERIC -> getNumericCellValue(cell);
+                    case STRING -> cell.getStringCellValue().trim();
+                    case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+                    default -> ""; // ошибка вычисления
+                };
             }
             default -> {
                 return "";
@@ -418,201 +364,522 @@ public class IndicatorService {
         }
     }
 
-    private String getFormattedDateCellValue(Cell cell) {
-        if (cell == null) {
-            return null;
+    private static String getNumericCellValue(Cell cell) {
+        if (DateUtil.isCellDateFormatted(cell)) {
+            return ImportCells.formatDate(cell.getLocalDateTimeCellValue());
         }
-        if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy");
-            return dateFormat.format(cell.getDateCellValue());
+        double numericValue = cell.getNumericCellValue();
+        if (numericValue == Math.floor(numericValue)) {
+            return String.valueOf((int) numericValue);
         }
-        return getCellValue(cell);
+        return String.valueOf(numericValue);
     }
 
-    private boolean validateEmails(String emails) {
-        if (emails == null || emails.isEmpty()) return false;
-        String[] emailArray = emails.split(";");
-        for (String email : emailArray) {
-            if (!EMAIL_PATTERN.matcher(email.trim()).matches()) return false;
-        }
-        return true;
+    // Чтение из снимка: без обращения к БД и без сортировки.
+    // Строки общие для всех запросов - только для чтения (см. IndicatorSnapshot)
+    public List<TargetIndicator> getAllIndicators() {
+        return readModel.current().getIndicators();
     }
 
-    public List<TargetIndicator> getAllIndicators() {
-        return targetRepo.findAll().stream()
-                .sorted(TargetIndicator.VERSION_COMPARATOR)
-                .collect(Collectors.toList());
+    // Те же списки строками без полных goal/responsibles (превью): читаются из БД без LOB-колонок,
+    // меньше чтения и JSON для таблиц
+    public List<IndicatorListItem> getIndicatorList() {
+        return targetRepo.findListAll();
+    }
+
+    public List<ErrorListItem> getErrorList() {
+        return errorRepo.findListAll();
     }
 
+    // Полная строка по id (детальный просмотр после списка); null - нет такой
+    public TargetIndicator findIndicator(Long id) {
+        return targetRepo.findById(id).orElse(null);
+    }
+
+    public ErrorIndicator findError(Long id) {
+        return errorRepo.findById(id).orElse(null);
+    }
+
+    // Узел и все его потомки (диапазон по индексу sort_key)
+    public List<IndicatorListItem> getSubtree(String number) {
+        if (number == null || number.isBlank()) {
+            throw new IllegalArgumentException("Не указан номер");
+        }
+        String prefix = TargetIndicator.sortKeyOf(number.trim());
+        if (prefix.isEmpty()) {
+            throw new IllegalArgumentException("Некорректный номер: " + number);
+        }
+        return targetRepo.findListSubtree(prefix);
+    }
+
+    // Ошибки из снимка, только для чтения (как getAllIndicators)
     public List<ErrorIndicator> getAllErrors() {
-        return errorRepo.findAll();
+        return readModel.current().getErrors();
+    }
+
+    // Курсор индикаторов: "<sortKey>:<id>" последней строки страницы; null - первая страница
+    // divisions - отбор по дивизионам (хотя бы один из списка) через индекс target_indicator_division; пусто - без отбора
+    public KeysetPage<IndicatorListItem> getIndicatorPage(String cursor, int size, Collection<String> divisions) {
+        String sortKey = "";
+        long id = Long.MIN_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+            sortKey = cursor.substring(0, separator);
+            id = parseCursorId(cursor.substring(separator + 1), cursor);
+        }
+        Set<String> divisionFilter = divisionFilter(divisions);
+        List<IndicatorListItem> rows = divisionFilter.isEmpty()
+                ? targetRepo.findListPageAfter(sortKey, id, PageRequest.of(0, size + 1))
+                : targetRepo.findListPageAfterInDivisions(sortKey, id, divisionFilter, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<IndicatorListItem> items = rows.subList(0, size);
+        IndicatorListItem last = items.get(size - 1);
+        return new KeysetPage<>(items, last.getSortKey() + ":" + last.getId());
+    }
+
+    // Курсор ошибок: id последней строки страницы; null - первая страница
+    public KeysetPage<ErrorListItem> getErrorPage(String cursor, int size, Collection<String> divisions) {
+        long id = cursor == null || cursor.isBlank() ? Long.MIN_VALUE : parseCursorId(cursor, cursor);
+        Set<String> divisionFilter = divisionFilter(divisions);
+        List<ErrorListItem> rows = divisionFilter.isEmpty()
+                ? errorRepo.findListPageAfter(id, PageRequest.of(0, size + 1))
+                : errorRepo.findListPageAfterInDivisions(id, divisionFilter, PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<ErrorListItem> items = rows.subList(0, size);
+        return new KeysetPage<>(items, String.valueOf(items.get(size - 1).getId()));
+    }
+
+    // Параметры ?division= могут повторяться или содержать список "Группа, ДКА"
+    private static Set<String> divisionFilter(Collection<String> divisions) {
+        Set<String> result = new LinkedHashSet<>();
+        if (divisions != null) {
+            divisions.stream().filter(Objects::nonNull).map(TargetIndicator::divisionNames).forEach(result::addAll);
+        }
+        return result;
+    }
+
+    private long parseCursorId(String value, String cursor) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
     }
 
+    // Очистка одним DELETE, без загрузки сущностей с LOB-полями
+    @Transactional
     public void deleteAllIndicators() {
-        targetRepo.deleteAll();
+        targetRepo.deleteAllInBatch();
+        publishChanges(new IndicatorReadModel.Changes().clearIndicators());
     }
 
+    @Transactional
     public void deleteAllErrors() {
-        errorRepo.deleteAll();
+        errorRepo.deleteAllInBatch();
+        publishChanges(new IndicatorReadModel.Changes().clearErrors());
     }
 
+    // Удаление индикаторов по условиям (null - условие не задано) одним DELETE ... WHERE.
+    // Из модели чтения и индексов убираются строки снимка, подходящие под то же условие
     @Transactional
-    public void transferErrors(List<Long> errorIds) {
+    public int deleteIndicators(String status, TargetIndicator.Structure structure, String division) {
+        requireCriteria(status, structure, division);
+        int deleted = targetRepo.deleteMatching(status, structure == null ? null : structure.name(), division);
+        publishChanges(new IndicatorReadModel.Changes().removeIndicatorsIf(indicator ->
+                (status == null || status.equals(indicator.getStatus()))
+                        && (structure == null || structure == indicator.getStructure())
+                        && (division == null || TargetIndicator.divisionNames(indicator.getDivisions()).contains(division))));
+        return deleted;
+    }
+
+    @Transactional
+    public int deleteErrors(TargetIndicator.Structure structure, String division) {
+        requireCriteria(null, structure, division);
+        int deleted = errorRepo.deleteMatching(structure == null ? null : structure.name(), division);
+        publishChanges(new IndicatorReadModel.Changes().removeErrorsIf(error ->
+                (structure == null || structure == error.getStructure())
+                        && (division == null || TargetIndicator.divisionNames(error.getDivisions()).contains(division))));
+        return deleted;
+    }
+
+    private static void requireCriteria(String status, TargetIndicator.Structure structure, String division) {
+        if (status == null && structure == null && division == null) {
+            throw new IllegalArgumentException("Не задано ни одного условия удаления");
+        }
+        if (division != null && !DIVISION_NAME.matcher(division).matches()) {
+            throw new IllegalArgumentException("Некорректный дивизион: " + division);
+        }
+    }
+
+    // Перенос ошибок в индикаторы одной транзакцией: ошибки читаются выборками по списку id,
+    // индикаторы вставляются JDBC-пачками, ошибки удаляются одним DELETE ... WHERE id IN на порцию.
+    // Отсутствующие id не прерывают перенос - возвращаются в результате
+    @Transactional
+    public TransferResult transferErrors(List<Long> errorIds) {
         if (errorIds == null || errorIds.isEmpty()) {
             throw new IllegalArgumentException("Список ID ошибок пустой или null");
         }
+        Set<Long> requested = new LinkedHashSet<>(errorIds);
+        requested.remove(null);
+        List<TargetIndicator> indicators = new ArrayList<>(requested.size());
+        List<Long> removedErrors = new ArrayList<>(requested.size());
+
+        List<Long> ids = new ArrayList<>(requested);
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()));
+            for (ErrorIndicator error : errorRepo.findAllById(chunk)) {
+                indicators.add(toIndicator(error));
+                removedErrors.add(error.getId());
+            }
+        }
+        List<TargetIndicator> transferred = targetRepo.saveAll(indicators);
+        for (int from = 0; from < removedErrors.size(); from += ID_CHUNK_SIZE) {
+            errorRepo.deleteAllByIdInBatch(removedErrors.subList(from, Math.min(from + ID_CHUNK_SIZE, removedErrors.size())));
+        }
 
-        for (Long id : errorIds) {
-            ErrorIndicator error = errorRepo.findById(id).orElseThrow(() ->
-                    new RuntimeException("Ошибка с ID " + id + " не найдена"));
+        requested.removeAll(removedErrors);
+        publishChanges(new IndicatorReadModel.Changes().saveIndicators(transferred).removeErrors(removedErrors));
+        return new TransferResult(transferred.size(), new ArrayList<>(requested));
+    }
 
-            TargetIndicator indicator = new TargetIndicator();
-            indicator.setNumber(error.getNumber());
-            indicator.setStructure(error.getStructure());
-            indicator.setLevel(error.getLevel());
-            indicator.setGoal(error.getGoal());
-            indicator.setDeadline(error.getDeadline());
-            indicator.setDeadlineEnd(error.getDeadlineEnd());
-            indicator.setDivisions(error.getDivisions());
-            indicator.setOwner(error.getOwner());
-            indicator.setCoordinator(error.getCoordinator());
-            indicator.setResponsibles(error.getResponsibles());
-            indicator.setAdditionalResponsibles(error.getAdditionalResponsibles());
-            indicator.setBusiness(error.getBusiness());
+    private static TargetIndicator toIndicator(ErrorIndicator error) {
+        TargetIndicator indicator = new TargetIndicator();
+        indicator.setNumber(error.getNumber());
+        indicator.setStructure(error.getStructure());
+        indicator.setLevel(error.getLevel());
+        indicator.setGoal(error.getGoal());
+        indicator.setDeadline(error.getDeadline());
+        indicator.setDeadlineEnd(error.getDeadlineEnd());
+        indicator.setDivisions(error.getDivisions());
+        indicator.setOwner(error.getOwner());
+        indicator.setCoordinator(error.getCoordinator());
+        indicator.setResponsibles(error.getResponsibles());
+        indicator.setAdditionalResponsibles(error.getAdditionalResponsibles());
+        indicator.setBusiness(error.getBusiness());
+        return indicator;
+    }
 
-            targetRepo.save(indicator);
-            errorRepo.delete(error);
+    // Правка индикатора: меняются только переданные поля, UPDATE содержит только изменившиеся колонки (@DynamicUpdate).
+    // expectedVersion - версия строки, которую видел клиент; null - без проверки (старый POST /update).
+    // Устаревшая версия или параллельная фиксация - OptimisticLockingFailureException, нет строки - NoSuchElementException
+    @Transactional
+    public TargetIndicator updateIndicator(Long id, Long expectedVersion, Map<String, String> values) {
+        TargetIndicator indicator = targetRepo.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Indicator not found with id: " + id));
+        checkVersion(TargetIndicator.class, id, expectedVersion, indicator.getVersion());
+        if (!IndicatorEdits.apply(indicator, values).isEmpty()) {
+            publishChanges(new IndicatorReadModel.Changes().saveIndicators(List.of(indicator)));
         }
+        return indicator;
     }
 
+    // Правка ошибки, правила те же, что в updateIndicator
+    @Transactional
+    public ErrorIndicator updateError(Long id, Long expectedVersion, Map<String, String> values) {
+        ErrorIndicator error = errorRepo.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Error with id " + id + " not found"));
+        checkVersion(ErrorIndicator.class, id, expectedVersion, error.getVersion());
+        if (!IndicatorEdits.apply(error, values).isEmpty()) {
+            publishChanges(new IndicatorReadModel.Changes().saveErrors(List.of(error)));
+        }
+        return error;
+    }
+
+    // Старый POST /update-error: строка целиком, null - поле не менять
+    @Transactional
     public ErrorIndicator updateError(Long id, ErrorIndicator errorData) {
-        Optional<ErrorIndicator> optionalError = errorRepo.findById(id);
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("number", errorData.getNumber());
+        values.put("structure", errorData.getStructure() == null ? null : errorData.getStructure().name());
+        values.put("level", errorData.getLevel());
+        values.put("goal", errorData.getGoal());
+        values.put("deadline", errorData.getDeadline());
+        values.put("deadlineEnd", errorData.getDeadlineEnd());
+        values.put("divisions", errorData.getDivisions());
+        values.put("owner", errorData.getOwner());
+        values.put("coordinator", errorData.getCoordinator());
+        values.put("responsibles", errorData.getResponsibles());
+        values.put("additionalResponsibles", errorData.getAdditionalResponsibles());
+        values.put("business", errorData.getBusiness());
+        values.put("errorMessage", errorData.getErrorMessage());
+        values.values().removeIf(Objects::isNull);
+        return updateError(id, errorData.getVersion(), values);
+    }
 
-        if (optionalError.isPresent()) {
-            ErrorIndicator error = optionalError.get();
+    private static void checkVersion(Class<?> type, Long id, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
 
-            if (errorData.getNumber() != null) {
-                error.setNumber(errorData.getNumber());
-            }
-            if (errorData.getStructure() != null) {
-                error.setStructure(errorData.getStructure());
-            }
-            if (errorData.getLevel() != null) {
-                error.setLevel(errorData.getLevel());
-            }
-            if (errorData.getGoal() != null) {
-                error.setGoal(errorData.getGoal());
-            }
-            if (errorData.getDeadline() != null) {
-                error.setDeadline(errorData.getDeadline());
-            }
-            if (errorData.getDeadlineEnd() != null) {
-                error.setDeadlineEnd(errorData.getDeadlineEnd());
-            }
-            if (errorData.getDivisions() != null) {
-                error.setDivisions(errorData.getDivisions());
-            }
-            if (errorData.getOwner() != null) {
-                error.setOwner(errorData.getOwner());
-            }
-            if (errorData.getCoordinator() != null) {
-                error.setCoordinator(errorData.getCoordinator());
-            }
-            if (errorData.getResponsibles() != null) {
-                error.setResponsibles(errorData.getResponsibles());
-            }
-            if (errorData.getAdditionalResponsibles() != null) {
-                error.setAdditionalResponsibles(errorData.getAdditionalResponsibles());
+    public byte[] exportToXls(String type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportToXls(type, out);
+        return out.toByteArray();
+    }
+
+    // Потоковый экспорт: SXSSF держит в памяти только окно строк, сущности читаются из БД порциями
+    public void exportToXls(String type, OutputStream out) throws IOException {
+        heavyOperations.run(() -> {
+            writeExport(type, out);
+            return null;
+        });
+    }
+
+    // Разрешение на экспорт берётся в потоке запроса, до начала ответа: при занятом сервере клиент
+    // получает 503, а не оборванный файл. Освобождается после записи (exportToXls с разрешением)
+    public HeavyOperationLimiter.Permit reserveExport() {
+        return heavyOperations.acquire();
+    }
+
+    public void exportToXls(String type, OutputStream out, HeavyOperationLimiter.Permit permit) throws IOException {
+        try (permit) {
+            writeExport(type, out);
+        }
+    }
+
+    private void writeExport(String type, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        boolean errors = !type.equals("main");
+        CountingOutputStream counting = new CountingOutputStream(out);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(exportRowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet("Indicators");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Number");
+            header.createCell(1).setCellValue("Structure");
+            header.createCell(2).setCellValue("Level");
+            header.createCell(3).setCellValue("Goal");
+            header.createCell(4).setCellValue("Deadline");
+            header.createCell(5).setCellValue("DeadlineEnd");
+            header.createCell(6).setCellValue("Divisions");
+            header.createCell(7).setCellValue("Owner");
+            header.createCell(8).setCellValue("Coordinator");
+            header.createCell(9).setCellValue("Responsibles");
+            header.createCell(10).setCellValue("Additional Responsibles");
+            header.createCell(11).setCellValue("Business");
+            if (errors)
+                header.createCell(12).setCellValue("Error Message");  // Изменено: "Error Message" вместо "Error Reason"
+
+            int[] rowNum = {1};
+            if (errors) {
+                forEachErrorChunk(chunk -> chunk.forEach(err -> writeExportRow(sheet.createRow(rowNum[0]++), err)));
+            } else {
+                forEachIndicatorChunk(chunk -> chunk.forEach(ind -> writeExportRow(sheet.createRow(rowNum[0]++), ind)));
             }
-            if (errorData.getBusiness() != null) {
-                error.setBusiness(errorData.getBusiness());
+            workbook.write(counting);
+        } finally {
+            // close удаляет и временные файлы SXSSF
+            workbook.close();
+        }
+        metrics.recordExport(errors ? "errors" : "main", System.nanoTime() - started, counting.getCount());
+    }
+
+    // Индикаторы порциями в порядке номеров (keyset по sort_key, id)
+    private void forEachIndicatorChunk(Consumer<List<TargetIndicator>> consumer) {
+        String sortKey = "";
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<TargetIndicator> chunk = targetRepo.findPageAfter(sortKey, lastId, PageRequest.of(0, exportChunkSize));
+            if (chunk.isEmpty()) {
+                return;
             }
-            if (errorData.getErrorMessage() != null) {  // Изменено: errorMessage вместо errorReason
-                error.setErrorMessage(errorData.getErrorMessage());
+            consumer.accept(chunk);
+            TargetIndicator last = chunk.get(chunk.size() - 1);
+            sortKey = last.getSortKey();
+            lastId = last.getId();
+            entityManager.clear();
+        }
+    }
+
+    // Ошибки порциями по возрастанию id (keyset: id > последнего прочитанного)
+    private void forEachErrorChunk(Consumer<List<ErrorIndicator>> consumer) {
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<ErrorIndicator> chunk = errorRepo.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, exportChunkSize));
+            if (chunk.isEmpty()) {
+                return;
             }
+            consumer.accept(chunk);
+            lastId = chunk.get(chunk.size() - 1).getId();
+            entityManager.clear();
+        }
+    }
 
-            return errorRepo.save(error);
+    private void writeExportRow(Row row, TargetIndicator ind) {
+        row.createCell(0).setCellValue(ind.getNumber());
+        row.createCell(1).setCellValue(ind.getStructure().toString());
+        row.createCell(2).setCellValue(ind.getLevel());
+        row.createCell(3).setCellValue(ind.getGoal());
+        row.createCell(4).setCellValue(ind.getDeadline());
+        row.createCell(5).setCellValue(ind.getDeadlineEnd());
+        String divisionsStr = ind.getDivisions();
+        if (divisionsStr != null && !divisionsStr.trim().equals("[object Object]")) {
+            row.createCell(6).setCellValue(divisionsStr);
         } else {
-            throw new RuntimeException("Error with id " + id + " not found");
+            row.createCell(6).setCellValue("");  // Или оставьте пустым, или добавьте логику для парсинга, если divisions — JSON-массив
         }
+        row.createCell(7).setCellValue(ind.getOwner());
+        row.createCell(8).setCellValue(ind.getCoordinator());
+        row.createCell(9).setCellValue(ind.getResponsibles());
+        row.createCell(10).setCellValue(ind.getAdditionalResponsibles());
+        row.createCell(11).setCellValue(ind.getBusiness());
     }
 
-    public byte[] exportToXls(String type) throws IOException {
-        List<?> indicators = type.equals("main") ? getAllIndicators() : getAllErrors();
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Indicators");
-        Row header = sheet.createRow(0);
-        header.createCell(0).setCellValue("Number");
-        header.createCell(1).setCellValue("Structure");
-        header.createCell(2).setCellValue("Level");
-        header.createCell(3).setCellValue("Goal");
-        header.createCell(4).setCellValue("Deadline");
-        header.createCell(5).setCellValue("DeadlineEnd");
-        header.createCell(6).setCellValue("Divisions");
-        header.createCell(7).setCellValue("Owner");
-        header.createCell(8).setCellValue("Coordinator");
-        header.createCell(9).setCellValue("Responsibles");
-        header.createCell(10).setCellValue("Additional Responsibles");
-        header.createCell(11).setCellValue("Business");
-        if (type.equals("errors"))
-            header.createCell(12).setCellValue("Error Message");  // Изменено: "Error Message" вместо "Error Reason"
-
-        int rowNum = 1;
-        for (Object obj : indicators) {
-            Row row = sheet.createRow(rowNum++);
-            if (obj instanceof TargetIndicator ind) {
-                row.createCell(0).setCellValue(ind.getNumber());
-                row.createCell(1).setCellValue(ind.getStructure().toString());
-                row.createCell(2).setCellValue(ind.getLevel());
-                row.createCell(3).setCellValue(ind.getGoal());
-                row.createCell(4).setCellValue(ind.getDeadline());
-                row.createCell(5).setCellValue(ind.getDeadlineEnd());
-                String divisionsStr = ind.getDivisions();
-                if (divisionsStr != null && !divisionsStr.trim().equals("[object Object]")) {
-                    row.createCell(6).setCellValue(divisionsStr);
-                } else {
-                    row.createCell(6).setCellValue("");  // Или оставьте пустым, или добавьте логику для парсинга, если divisions — JSON-массив
-                }
-                row.createCell(7).setCellValue(ind.getOwner());
-                row.createCell(8).setCellValue(ind.getCoordinator());
-                row.createCell(9).setCellValue(ind.getResponsibles());
-                row.createCell(10).setCellValue(ind.getAdditionalResponsibles());
-                row.createCell(11).setCellValue(ind.getBusiness());
-            } else {
-                ErrorIndicator err = (ErrorIndicator) obj;
-                row.createCell(0).setCellValue(err.getNumber());
-                row.createCell(1).setCellValue(err.getStructure().toString());
-                row.createCell(2).setCellValue(err.getLevel());
-                row.createCell(3).setCellValue(err.getGoal());
-                row.createCell(4).setCellValue(err.getDeadline());
-                row.createCell(5).setCellValue(err.getDeadlineEnd());
-                String divisionsStr = err.getDivisions();
-                if (divisionsStr != null && !divisionsStr.trim().equals("[object Object]")) {
-                    row.createCell(6).setCellValue(divisionsStr);
-                } else {
-                    row.createCell(6).setCellValue("");  // Или оставьте пустым, или добавьте логику для парсинга, если divisions — JSON-массив
-                }
-                row.createCell(7).setCellValue(err.getOwner());
-                row.createCell(8).setCellValue(err.getCoordinator());
-                row.createCell(9).setCellValue(err.getResponsibles());
-                row.createCell(10).setCellValue(err.getAdditionalResponsibles());
-                row.createCell(11).setCellValue(err.getBusiness());
-                row.createCell(12).setCellValue(err.getErrorMessage());  // Изменено: getErrorMessage() вместо getErrorReason()
-            }
+    private void writeExportRow(Row row, ErrorIndicator err) {
+        row.createCell(0).setCellValue(err.getNumber());
+        row.createCell(1).setCellValue(err.getStructure().toString());
+        row.createCell(2).setCellValue(err.getLevel());
+        row.createCell(3).setCellValue(err.getGoal());
+        row.createCell(4).setCellValue(err.getDeadline());
+        row.createCell(5).setCellValue(err.getDeadlineEnd());
+        String divisionsStr = err.getDivisions();
+        if (divisionsStr != null && !divisionsStr.trim().equals("[object Object]")) {
+            row.createCell(6).setCellValue(divisionsStr);
+        } else {
+            row.createCell(6).setCellValue("");  // Или оставьте пустым, или добавьте логику для парсинга, если divisions — JSON-массив
         }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        workbook.write(out);
-        workbook.close();
-        return out.toByteArray();
+        row.createCell(7).setCellValue(err.getOwner());
+        row.createCell(8).setCellValue(err.getCoordinator());
+        row.createCell(9).setCellValue(err.getResponsibles());
+        row.createCell(10).setCellValue(err.getAdditionalResponsibles());
+        row.createCell(11).setCellValue(err.getBusiness());
+        row.createCell(12).setCellValue(err.getErrorMessage());  // Изменено: getErrorMessage() вместо getErrorReason()
+    }
+
+    // Снимок чтения, дерево номеров и поисковый индекс строятся при старте одним чтением таблиц.
+    // Под publishLock: запись, фиксируемая во время чтения, применится после пересборки, а не затрётся ею
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIndexes() {
+        List<TargetIndicator> indicators;
+        List<ErrorIndicator> errors;
+        publishLock.lock();
+        try {
+            indicators = targetRepo.findAllByOrderBySortKeyAscIdAsc();
+            errors = errorRepo.findAll(Sort.by("id"));
+            readModel.rebuild(indicators, errors);
+            hierarchyIndex.rebuild(indicators.stream().map(IndicatorHierarchyIndex.Entry::of).toList());
+            searchIndex.rebuild(indicators);
+        } finally {
+            publishLock.unlock();
+        }
+        log.info("Снимок данных построен: {} индикаторов, {} ошибок, {} термов поиска",
+                indicators.size(), errors.size(), searchIndex.termCount());
+    }
+
+    // ETag для условных GET: вид ответа, версия снимка и версия справочника дивизионов.
+    // Версия снимка меняется при каждой записи (импорт, правка, перенос, удаление, очистка)
+    public String getDataTag(String representation) {
+        return representation + "-" + readModel.versionTag() + "-" + divisionConfig.getRegistry().getVersion();
+    }
+
+    public Map<String, Object> getSnapshotStatus() {
+        return readModel.status();
+    }
+
+    public Map<String, Object> getHierarchyRollup(String number) {
+        return hierarchyIndex.rollup(number);
     }
 
-    public TargetIndicator getIndicatorById(Long id) {
-        return targetRepo.findById(id)
-                .orElseThrow(() -> new RuntimeException("Indicator not found with id: " + id));
+    public Map<String, Object> getHierarchySubtree(String number) {
+        return hierarchyIndex.subtree(number);
     }
 
-    public TargetIndicator saveIndicator(TargetIndicator indicator) {
-        return targetRepo.save(indicator);
+    public List<Map<String, Object>> getHierarchyChildren(String number) {
+        return hierarchyIndex.children(number);
+    }
+
+    // Полнотекстовый поиск по индексу в памяти; индикаторы берутся из него же, без обращения к БД
+    public Map<String, Object> searchIndicators(String query, int limit) {
+        if (query == null || IndicatorSearchIndex.tokenize(query).isEmpty()) {
+            throw new IllegalArgumentException("Пустой поисковый запрос");
+        }
+        long started = System.nanoTime();
+        IndicatorSearchIndex.Result result = searchIndex.search(query, limit);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (IndicatorSearchIndex.Hit hit : result.getHits()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("score", Math.round(hit.getScore() * 1000) / 1000.0);
+            item.put("indicator", hit.getIndicator());
+            items.add(item);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", query);
+        response.put("total", result.getTotal());
+        // true - короткий префикс раскрыт не полностью, уточните запрос
+        response.put("truncated", result.isTruncated());
+        response.put("items", items);
+        response.put("tookMs", (System.nanoTime() - started) / 1_000_000);
+        return response;
+    }
+
+    // Все записи проходят через этот метод: он поддерживает структуры в памяти (дерево номеров,
+    // поисковый индекс, снимок чтения). Изменения применяются после фиксации, в порядке фиксаций:
+    // publishLock берётся перед фиксацией (после flush, чтобы не ждать строк других транзакций)
+    // и отпускается после применения. В снимок попадают отсоединённые копии строк
+    private void publishChanges(IndicatorReadModel.Changes changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishLock.lock();
+            try {
+                applyChanges(changes.detached());
+            } finally {
+                publishLock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private IndicatorReadModel.Changes committed;
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                try {
+                    entityManager.flush();
+                } catch (RuntimeException e) {
+                    // как при flush в самой фиксации: конфликт версий - OptimisticLockingFailureException
+                    RuntimeException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+                    throw translated != null ? translated : e;
+                }
+                committed = changes.detached();
+                publishLock.lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!locked) {
+                    return;
+                }
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        applyChanges(committed);
+                    }
+                } finally {
+                    publishLock.unlock();
+                }
+            }
+        });
+    }
+
+    private void applyChanges(IndicatorReadModel.Changes changes) {
+        changes.resolveRemovals(readModel.current());
+        if (changes.isClearIndicators()) {
+            hierarchyIndex.clear();
+            searchIndex.clear();
+        }
+        hierarchyIndex.removeAll(changes.getRemovedIndicators());
+        hierarchyIndex.putAll(changes.getSavedIndicators());
+        searchIndex.removeAll(changes.getRemovedIndicators());
+        searchIndex.putAll(changes.getSavedIndicators());
+        readModel.update(changes);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package kvo.order.service;
+
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+
+import java.time.Instant;
+import java.util.List;
+
+// Неизменяемый снимок данных для чтения: индикаторы в порядке номеров, ошибки по id.
+// Списки неизменяемые, но строки в них - общие для всех читателей сущности (отсоединённые копии):
+// их нельзя менять, правки идут через IndicatorService, для изменений нужна copy()
+public class IndicatorSnapshot {
+    private final List<TargetIndicator> indicators;
+    private final List<ErrorIndicator> errors;
+    private final long version;
+    private final Instant builtAt;
+    private final long buildMillis;
+
+    public IndicatorSnapshot(List<TargetIndicator> indicators, List<ErrorIndicator> errors,
+                             long version, Instant builtAt, long buildMillis) {
+        this.indicators = List.copyOf(indicators);
+        this.errors = List.copyOf(errors);
+        this.version = version;
+        this.builtAt = builtAt;
+        this.buildMillis = buildMillis;
+    }
+
+    public List<TargetIndicator> getIndicators() { return indicators; }
+    public List<ErrorIndicator> getErrors() { return errors; }
+    public long getVersion() { return version; }
+    public Instant getBuiltAt() { return builtAt; }
+    public long getBuildMillis() { return buildMillis; }
+}
@@ -0,0 +1,18 @@
+package kvo.order.service;
+
+import java.util.List;
+
+// Страница keyset-пагинации: элементы и курсор для запроса следующей страницы (null - страниц больше нет)
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,23 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+
+import java.util.Set;
+
+// Результат проверки строки: индикатор, текст ошибок (null - строка валидна) и сработавшие правила
+public class RowValidation {
+    private final TargetIndicator indicator;
+    private final String errorMessage;
+    private final Set<ImportRule> rules;
+
+    public RowValidation(TargetIndicator indicator, String errorMessage, Set<ImportRule> rules) {
+        this.indicator = indicator;
+        this.errorMessage = errorMessage;
+        this.rules = rules;
+    }
+
+    public TargetIndicator getIndicator() { return indicator; }
+    public String getErrorMessage() { return errorMessage; }
+    public Set<ImportRule> getRules() { return rules; }
+    public boolean isValid() { return errorMessage == null; }
+}
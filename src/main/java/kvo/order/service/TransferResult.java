@@ -0,0 +1,18 @@
+package kvo.order.service;
+
+import java.util.List;
+
+// Итог переноса ошибок в индикаторы
+public class TransferResult {
+    private final int transferred;
+    private final List<Long> notFound;
+
+    public TransferResult(int transferred, List<Long> notFound) {
+        this.transferred = transferred;
+        this.notFound = notFound;
+    }
+
+    public int getTransferred() { return transferred; }
+    // Id, которых нет среди ошибок (уже перенесены или удалены)
+    public List<Long> getNotFound() { return notFound; }
+}
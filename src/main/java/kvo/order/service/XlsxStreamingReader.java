@@ -0,0 +1,202 @@
+package kvo.order.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+// Потоковое чтение первого листа .xlsx через event model POI (XSSFReader + SAX).
+// В памяти держится только текущая строка, DOM книги не строится.
+@Component
+public class XlsxStreamingReader {
+
+    public interface RowHandler {
+        // Вызывается до чтения строк; false - лист не подходит, строки не читаются
+        boolean startSheet(String sheetName);
+
+        void row(ImportRow row);
+    }
+
+    public void readFirstSheet(File file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("Книга не содержит листов");
+            }
+            try (InputStream sheet = sheets.next()) {
+                if (!handler.startSheet(sheets.getSheetName())) {
+                    return;
+                }
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(strings, styles, date1904, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Ошибка чтения xlsx: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException,
+            SAXException, ParserConfigurationException {
+        boolean[] date1904 = {false};
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbook));
+        }
+        return date1904[0];
+    }
+
+    // SAX-обработчик листа. Декодирует значения так же, как IndicatorService.getCellValue для DOM
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+
+        private final StringBuilder text = new StringBuilder();
+        // Является ли стиль форматом даты: проверка формата (isADateFormat) делается один раз на стиль
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+        private String[] values;
+        private int rowNum = -1;
+        private int column;
+        private String cellType;
+        private String cellStyle;
+        private boolean hasValue;
+        private boolean inValue;
+        private boolean inInlineText;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, boolean date1904, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    values = new String[ImportRow.COLUMN_COUNT];
+                    column = -1;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? ImportCells.columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    hasValue = false;
+                    text.setLength(0);
+                }
+                case "v" -> {
+                    inValue = true;
+                    hasValue = true;
+                }
+                case "t" -> {
+                    if ("inlineStr".equals(cellType)) {
+                        inInlineText = true;
+                        hasValue = true;
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v" -> inValue = false;
+                case "t" -> inInlineText = false;
+                case "c" -> {
+                    if (column >= 0 && column < ImportRow.COLUMN_COUNT) {
+                        values[column] = decode();
+                    }
+                }
+                case "row" -> handler.row(new ImportRow(rowNum, values));
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        // Для формулы (<f>, в т.ч. общей - shared) берётся сохранённый результат <v>:
+        // тип результата в t ("str", "b", "e", число без t), текст формулы не читается
+        private String decode() {
+            String raw = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                if (!hasValue || raw.isEmpty()) {
+                    return ""; // BLANK
+                }
+                double numericValue = Double.parseDouble(raw);
+                if (isDate(numericValue)) {
+                    return formatDate(numericValue);
+                }
+                if (numericValue == Math.floor(numericValue)) {
+                    return String.valueOf((int) numericValue);
+                }
+                return String.valueOf(numericValue);
+            }
+            return switch (cellType) {
+                case "s" -> strings.getItemAt(Integer.parseInt(raw.trim())).getString();
+                case "inlineStr" -> raw;
+                case "str" -> raw.trim(); // строковый результат формулы
+                case "b" -> String.valueOf("1".equals(raw));
+                default -> ""; // ошибки ("e") и неизвестные типы
+            };
+        }
+
+        private boolean isDate(double value) {
+            if (cellStyle == null || styles == null || !DateUtil.isValidExcelDate(value)) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(Integer.parseInt(cellStyle), this::isDateStyle);
+        }
+
+        private boolean isDateStyle(int index) {
+            XSSFCellStyle style = styles.getStyleAt(index);
+            return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+
+        private String formatDate(double value) {
+            return ImportCells.formatDate(DateUtil.getLocalDateTime(value, date1904));
+        }
+    }
+}
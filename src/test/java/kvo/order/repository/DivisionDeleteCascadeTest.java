@@ -0,0 +1,73 @@
+package kvo.order.repository;
+
+import jakarta.persistence.EntityManager;
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// deleteMatching удаляет только строки индикаторов и ошибок, строки дивизионов удаляет внешний ключ
+// ON DELETE CASCADE. Схема создаётся ddl-auto из сущностей, как в приложении
+@DataJpaTest
+class DivisionDeleteCascadeTest {
+    @Autowired
+    private TargetIndicatorRepository targetRepo;
+    @Autowired
+    private ErrorIndicatorRepository errorRepo;
+    @Autowired
+    private EntityManager entityManager;
+
+    private static TargetIndicator indicator(String number, String divisions) {
+        TargetIndicator indicator = new TargetIndicator();
+        indicator.setNumber(number);
+        indicator.setStructure(TargetIndicator.Structure.ЦЕЛЬ);
+        indicator.setDivisions(divisions);
+        indicator.setStatus("valid");
+        return indicator;
+    }
+
+    private static ErrorIndicator error(String number, String divisions) {
+        ErrorIndicator error = new ErrorIndicator();
+        error.setNumber(number);
+        error.setStructure(TargetIndicator.Structure.ЦЕЛЬ);
+        error.setDivisions(divisions);
+        error.setErrorMessage("|!влад");
+        return error;
+    }
+
+    private long count(String sql) {
+        return ((Number) entityManager.createNativeQuery(sql).getSingleResult()).longValue();
+    }
+
+    @Test
+    void divisionForeignKeysCascadeOnDelete() {
+        assertThat(count("select count(*) from information_schema.referential_constraints where delete_rule = 'CASCADE'"
+                + " and lower(constraint_name) in ('fk_target_indicator_division', 'fk_error_indicator_division')"))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void deleteMatchingLeavesNoDivisionRows() {
+        targetRepo.saveAll(List.of(indicator("1.1.", "Группа, ДКА"), indicator("1.2.", "ДКА"),
+                indicator("1.3.", "Группа")));
+        errorRepo.saveAll(List.of(error("2.1.", "ДКА, ДАК"), error("2.2.", "ДАК")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(targetRepo.deleteMatching(null, null, "ДКА")).isEqualTo(2);
+        assertThat(errorRepo.deleteMatching(TargetIndicator.Structure.ЦЕЛЬ.name(), "ДКА")).isEqualTo(1);
+
+        assertThat(targetRepo.findAll()).extracting(TargetIndicator::getNumber).containsExactly("1.3.");
+        assertThat(count("select count(*) from target_indicator_division")).isEqualTo(1);
+        assertThat(count("select count(*) from target_indicator_division d where not exists"
+                + " (select 1 from target_indicator t where t.id = d.indicator_id)")).isZero();
+        assertThat(count("select count(*) from error_indicator_division")).isEqualTo(1);
+        assertThat(count("select count(*) from error_indicator_division d where not exists"
+                + " (select 1 from error_indicator e where e.id = d.error_id)")).isZero();
+    }
+}
@@ -0,0 +1,107 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchyImportCheckTest {
+    private final IndicatorHierarchyIndex index = new IndicatorHierarchyIndex();
+
+    private void saved(String... numbers) {
+        List<IndicatorHierarchyIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < numbers.length; i++) {
+            entries.add(new IndicatorHierarchyIndex.Entry((long) i + 1, numbers[i], TargetIndicator.Structure.ЦЕЛЬ, "valid"));
+        }
+        index.rebuild(entries);
+    }
+
+    private static Set<ImportRule> rules(HierarchyImportCheck check, String number) {
+        Set<ImportRule> rules = EnumSet.noneOf(ImportRule.class);
+        check.check(number, rules);
+        return rules;
+    }
+
+    @Test
+    void hierarchyKeyKeepsEverySegment() {
+        assertThat(TargetIndicator.hierarchyKeyOf("1.2.")).isEqualTo("1.2");
+        assertThat(TargetIndicator.hierarchyKeyOf("1.2.0.")).isEqualTo("1.2.0");
+        assertThat(TargetIndicator.hierarchyKeyOf("01. 002 .0.")).isEqualTo("1.2.0");
+        assertThat(TargetIndicator.hierarchyKeyOf("1.1000000.")).isEqualTo("1.1000000");
+        assertThat(TargetIndicator.hierarchyKeyOf("1.a.")).isEmpty();
+        assertThat(TargetIndicator.hierarchyKeyOf(".")).isEmpty();
+        assertThat(TargetIndicator.hierarchyKeyOf(null)).isEmpty();
+        assertThat(TargetIndicator.parentHierarchyKeyOf("1.2.0")).isEqualTo("1.2");
+        assertThat(TargetIndicator.parentHierarchyKeyOf("1")).isEmpty();
+    }
+
+    @Test
+    void trailingZeroAndLargeSegmentsAreDistinctNumbers() {
+        HierarchyImportCheck check = new HierarchyImportCheck(index, false);
+        assertThat(rules(check, "1.")).isEmpty();
+        assertThat(rules(check, "1.2.")).isEmpty();
+        assertThat(rules(check, "1.2.0.")).isEmpty();
+        assertThat(rules(check, "1.999999.")).isEmpty();
+        assertThat(rules(check, "1.1000000.")).isEmpty();
+        assertThat(rules(check, "1.2.0.1.")).isEmpty();
+        assertThat(rules(check, "1.02.")).containsExactly(ImportRule.DUPLICATE_NUMBER);
+    }
+
+    @Test
+    void parentWithZeroSegmentMustExist() {
+        HierarchyImportCheck check = new HierarchyImportCheck(index, false);
+        assertThat(rules(check, "1.")).isEmpty();
+        assertThat(rules(check, "1.0.1.")).containsExactly(ImportRule.MISSING_PARENT);
+        assertThat(rules(check, "2.1.")).containsExactly(ImportRule.MISSING_PARENT);
+    }
+
+    @Test
+    void savedIndicatorsCountUnlessUpsert() {
+        saved("1.", "1.2.");
+        assertThat(rules(new HierarchyImportCheck(index, false), "1.2.")).containsExactly(ImportRule.DUPLICATE_NUMBER);
+        assertThat(rules(new HierarchyImportCheck(index, false), "1.2.0.")).isEmpty();
+        assertThat(rules(new HierarchyImportCheck(index, false), "1.2.3.")).isEmpty();
+        assertThat(rules(new HierarchyImportCheck(index, true), "1.2.")).isEmpty();
+        assertThat(rules(new HierarchyImportCheck(index, true), "1.3.1.")).containsExactly(ImportRule.MISSING_PARENT);
+    }
+
+    @Test
+    void batchBooksAreCheckedAgainstBookOrder() {
+        saved("1.", "1.5.");
+        ImportBatchNumbers batch = new ImportBatchNumbers();
+        batch.addBook(0, List.of("1.1.", "1.2.", "1.5."), index::containsNumber);
+        batch.addBook(2, List.of("1.1.1.", "1.02.", "1.3."), index::containsNumber);
+        batch.addBook(3, List.of("1.3.1."), index::containsNumber);
+
+        // книга 2 до книги 0: дубль и родитель определяются порядком пакета, а не выполнения
+        HierarchyImportCheck later = new HierarchyImportCheck(index, false, batch, 2);
+        assertThat(rules(later, "1.1.1.")).isEmpty();
+        assertThat(rules(later, "1.02.")).containsExactly(ImportRule.DUPLICATE_NUMBER);
+        assertThat(rules(later, "1.3.")).isEmpty();
+        HierarchyImportCheck first = new HierarchyImportCheck(index, false, batch, 0);
+        assertThat(rules(first, "1.1.")).isEmpty();
+        assertThat(rules(first, "1.2.")).isEmpty();
+        assertThat(rules(first, "1.5.")).containsExactly(ImportRule.DUPLICATE_NUMBER);
+        // родитель из следующей книги пакета тоже засчитывается
+        assertThat(rules(new HierarchyImportCheck(index, false, batch, 0), "1.3.1.")).isEmpty();
+        assertThat(rules(new HierarchyImportCheck(index, true, batch, 0), "1.5.")).isEmpty();
+        assertThat(rules(new HierarchyImportCheck(index, false, batch, 3), "1.4.1."))
+                .containsExactly(ImportRule.MISSING_PARENT);
+    }
+
+    @Test
+    void indexOrdersChildrenByNumber() {
+        saved("1.", "1.10.", "1.2.", "1.2.0.");
+        assertThat(index.children("1.")).extracting(child -> child.get("number")).containsExactly("1.2.", "1.10.");
+        assertThat(index.containsNumber("1.2.0.")).isTrue();
+        assertThat(index.containsNumber("1.2.0.0.")).isFalse();
+        Map<String, Object> rollup = index.rollup("1.2.");
+        assertThat(rollup.get("descendants")).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,95 @@
+package kvo.order.service;
+
+import jakarta.persistence.EntityManager;
+import kvo.order.model.TargetIndicator;
+import kvo.order.repository.ErrorIndicatorRepository;
+import kvo.order.repository.IndicatorImportKey;
+import kvo.order.repository.TargetIndicatorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+// UPSERT сопоставляет строки по ключу номера без потерь: номера с одним sortKey остаются разными индикаторами
+class ImportBatchWriterTest {
+    private final TargetIndicatorRepository targetRepo = mock(TargetIndicatorRepository.class);
+    private final ErrorIndicatorRepository errorRepo = mock(ErrorIndicatorRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final List<TargetIndicator> saved = new ArrayList<>();
+
+    private record Key(Long getId, String getNumberKey, String getContentHash, String getStatus)
+            implements IndicatorImportKey {
+    }
+
+    ImportBatchWriterTest() {
+        doAnswer(call -> {
+            call.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(targetRepo.saveAll(anyCollection())).thenAnswer(call -> {
+            saved.addAll(call.getArgument(0));
+            return new ArrayList<>(call.<Collection<TargetIndicator>>getArgument(0));
+        });
+    }
+
+    private ImportBatchWriter writer() {
+        return new ImportBatchWriter(targetRepo, errorRepo, transactionTemplate, mock(EntityManager.class), 100,
+                true, (indicators, errors, removedErrors, validRows) -> { });
+    }
+
+    private static TargetIndicator indicator(String number) {
+        TargetIndicator indicator = new TargetIndicator();
+        indicator.setNumber(number);
+        indicator.setGoal("Цель " + number);
+        return indicator;
+    }
+
+    @Test
+    void numbersWithSameSortKeyAreDistinct() {
+        assertThat(TargetIndicator.sortKeyOf("1.2.")).isEqualTo(TargetIndicator.sortKeyOf("1.2.0."));
+        assertThat(TargetIndicator.sortKeyOf("1.999999.")).isEqualTo(TargetIndicator.sortKeyOf("1.1000000."));
+        TargetIndicator existing = indicator("1.2.");
+        existing.setId(7L);
+        when(targetRepo.findImportKeys(anyCollection())).thenReturn(List.of(
+                new Key(7L, "1.2", "другой хэш", "valid")));
+        when(targetRepo.findAllById(Set.of(7L))).thenReturn(List.of(existing));
+
+        ImportBatchWriter writer = writer();
+        for (String number : List.of("1.2.", "1.2.0.", "1.999999.", "1.1000000.")) {
+            assertThat(writer.isRepeatedNumber(number)).as(number).isFalse();
+            writer.addIndicator(indicator(number));
+        }
+        writer.flush();
+
+        verify(targetRepo).findImportKeys(Set.of("1.2", "1.2.0", "1.999999", "1.1000000"));
+        assertThat(saved).extracting(TargetIndicator::getNumber).containsExactly("1.2.0.", "1.999999.", "1.1000000.");
+        assertThat(writer.getInsertedIndicators()).isEqualTo(3);
+        assertThat(writer.getUpdatedIndicators()).isEqualTo(1);
+        assertThat(writer.getSeenKeys()).containsExactlyInAnyOrder("1.2", "1.2.0", "1.999999", "1.1000000");
+    }
+
+    @Test
+    void repeatedNumberInFileIsDetectedByKey() {
+        ImportBatchWriter writer = writer();
+        writer.addIndicator(indicator("1.2."));
+        writer.addError(indicator("1.3."), "|!влад");
+        assertThat(writer.isRepeatedNumber("1.02.")).isTrue();
+        assertThat(writer.isRepeatedNumber("1.3.")).isTrue();
+        assertThat(writer.isRepeatedNumber("1.2.0.")).isFalse();
+        assertThat(writer.isRepeatedNumber("1.a.")).isFalse();
+
+        ImportBatchWriter append = new ImportBatchWriter(targetRepo, errorRepo, transactionTemplate,
+                mock(EntityManager.class), 100, false, (indicators, errors, removedErrors, validRows) -> { });
+        append.addIndicator(indicator("1.2."));
+        assertThat(append.isRepeatedNumber("1.2.")).isFalse();
+    }
+}
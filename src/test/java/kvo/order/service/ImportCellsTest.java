@@ -0,0 +1,118 @@
+package kvo.order.service;
+
+import org.apache.poi.ss.util.CellReference;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Сканеры ImportCells сверяются с прежним кодом на split / matches / LocalDate.parse
+class ImportCellsTest {
+    private static final Pattern LOGIN = Pattern.compile("^GAZ\\\\[\\w.-]+$", Pattern.CASE_INSENSITIVE);
+
+    private static final List<String> NUMBERS = List.of(
+            "", " ", ".", "..", "...", "1", "1.", "12.", "1.2", "1.2.", "1.2.3.", " 1 . 2 .", "1..2.", ".1.",
+            "1.a.", "a", "1. ", "1 2.", "1.2.3.4.5.6.7.8.", "007.", "1.\t", "١.", "1.-2.", "+1.");
+
+    private static final List<String> LOGINS = List.of(
+            "", " ", ";", " ; ", ";;", "GAZ\\ivanov", "gaz\\i.v-a_n0", "Gaz\\X", "GAZ\\", "GAZ\\ива", "GAZ/ivanov",
+            " GAZ\\ivanov ", "GAZ\\a;GAZ\\b", "GAZ\\a; GAZ\\b ", "GAZ\\a;;GAZ\\b", "GAZ\\a;", "GAZ\\a;;", ";GAZ\\a",
+            "GAZ\\a, GAZ\\b\tGAZ\\c", "GAZ\\a,,x", "GAZ\\a\r\nGAZ\\b", "GAZX\\a", "GAZ\\a b", "ivanov");
+
+    private static final List<String> DATES = List.of(
+            "01-03-2024", " 01-03-2024 ", "31-12-1999", "31-02-2024", "29-02-2023", "30-02-2024", "32-01-2024",
+            "00-01-2024", "01-00-2024", "01-13-2024", "1-3-2024", "01.03.2024", "2024-03-01", "", " ",
+            "01-03-0000", "aa-bb-cccc", "01-03-20245", "01-03-2024x", "０1-03-2024");
+
+    @Test
+    void segmentCountMatchesSplit() {
+        for (String value : NUMBERS) {
+            assertThat(ImportCells.segmentCount(value, '.')).as(value).isEqualTo(value.split("\\.").length);
+        }
+        for (String value : LOGINS) {
+            assertThat(ImportCells.segmentCount(value, ';')).as(value).isEqualTo(value.split(";").length);
+        }
+    }
+
+    @Test
+    void dottedNumberMatchesSplitAndMatches() {
+        for (String value : NUMBERS) {
+            boolean expected = true;
+            for (String part : value.split("\\.")) {
+                String trimmed = part.trim();
+                if (!trimmed.isEmpty() && !trimmed.matches("\\d+")) {
+                    expected = false;
+                }
+            }
+            assertThat(ImportCells.isDottedNumber(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rootNumberMatchesFirstPart() {
+        for (String value : NUMBERS) {
+            String[] parts = value.split("\\.");
+            // номер из одних точек (частей нет) - не корневой
+            boolean expected = parts.length == 1 && parts[0].trim().matches("\\d+");
+            assertThat(ImportCells.isRootNumber(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void loginChecksMatchPattern() {
+        for (String value : LOGINS) {
+            assertThat(ImportCells.isLogin(value)).as(value).isEqualTo(LOGIN.matcher(value).matches());
+
+            boolean list = true;
+            for (String login : value.split(";")) {
+                list &= LOGIN.matcher(login.trim()).matches();
+            }
+            assertThat(ImportCells.isLoginList(value)).as(value).isEqualTo(list);
+
+            boolean set = true;
+            for (String login : value.split("[,\\s;]+")) {
+                String trimmed = login.trim();
+                set &= trimmed.isEmpty() || LOGIN.matcher(trimmed).matches();
+            }
+            assertThat(ImportCells.isLoginSet(value)).as(value).isEqualTo(set);
+        }
+    }
+
+    @Test
+    void parseDateMatchesFormatter() {
+        for (String value : DATES) {
+            LocalDate expected;
+            try {
+                expected = LocalDate.parse(value.trim(), ImportCells.DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                assertThatThrownBy(() -> ImportCells.parseDate(value))
+                        .as(value).isInstanceOf(DateTimeParseException.class);
+                continue;
+            }
+            assertThat(ImportCells.parseDate(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void formatDateMatchesFormatter() {
+        for (LocalDateTime value : List.of(LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(1900, 1, 1, 12, 30),
+                LocalDateTime.of(9999, 12, 31, 23, 59), LocalDateTime.of(10000, 1, 1, 0, 0),
+                LocalDateTime.of(0, 6, 15, 0, 0))) {
+            assertThat(ImportCells.formatDate(value)).as(value.toString())
+                    .isEqualTo(ImportCells.DATE_FORMATTER.format(value));
+        }
+    }
+
+    @Test
+    void columnIndexMatchesCellReference() {
+        for (String ref : List.of("A1", "B12", "Z3", "AA1", "AB12", "XFD1048576", "$C$4", "c5", "ZZ10")) {
+            assertThat(ImportCells.columnIndex(ref)).as(ref).isEqualTo(new CellReference(ref).getCol());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package kvo.order.service;
+
+import kvo.order.config.DivisionRegistry;
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ImportPipelineTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final DivisionRegistry divisions = new DivisionRegistry(List.of(), 1);
+    private final ImportBatchWriter writer = mock(ImportBatchWriter.class);
+    // Что и в каком порядке получила стадия записи: "номер" или "номер!ошибка"
+    private final List<String> written = new ArrayList<>();
+
+    // Проверка-заглушка: номер из столбца 0, строка с "bad" в столбце 1 - ошибка правила STRUCTURE
+    private final IndicatorRowValidator validator = new IndicatorRowValidator() {
+        @Override
+        public RowValidation validate(ImportRow row, DivisionRegistry divisionRegistry) {
+            if (row.getRowNum() < 2) {
+                return null;
+            }
+            if ("fail".equals(row.cell(1))) {
+                throw new IllegalStateException("сбой проверки");
+            }
+            TargetIndicator indicator = new TargetIndicator();
+            indicator.setNumber(row.cell(0));
+            boolean bad = "bad".equals(row.cell(1));
+            return new RowValidation(indicator, bad ? "|!структ" : null,
+                    bad ? EnumSet.of(ImportRule.STRUCTURE) : EnumSet.noneOf(ImportRule.class));
+        }
+    };
+
+    ImportPipelineTest() {
+        doAnswer(call -> written.add(call.<TargetIndicator>getArgument(0).getNumber()))
+                .when(writer).addIndicator(any());
+        doAnswer(call -> written.add(call.<TargetIndicator>getArgument(0).getNumber() + "!" + call.getArgument(1)))
+                .when(writer).addError(any(), anyString());
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ImportRow row(int rowNum, String number, String structure) {
+        String[] values = new String[ImportRow.COLUMN_COUNT];
+        values[0] = number;
+        values[1] = structure;
+        return new ImportRow(rowNum, values);
+    }
+
+    @Test
+    void rowsAreWrittenInFileOrderAcrossWindows() {
+        ImportPipeline pipeline = new ImportPipeline(validator, divisions, executor, writer, 0, null);
+        List<String> expected = new ArrayList<>();
+        pipeline.accept(row(0, "Номер", null));
+        pipeline.accept(row(1, "1", null));
+        // окно не меньше 128 строк: 1000 строк - несколько окон и задач проверки
+        for (int i = 2; i < 1002; i++) {
+            boolean bad = i % 7 == 0;
+            pipeline.accept(row(i, i + ".", bad ? "bad" : "Раздел"));
+            expected.add(bad ? i + ".!|!структ" : i + ".");
+        }
+        pipeline.finish();
+
+        assertThat(written).isEqualTo(expected);
+        assertThat(pipeline.getRejections()).containsExactlyEntriesOf(
+                Map.of(ImportRule.STRUCTURE, expected.stream().filter(r -> r.contains("!")).count()));
+        verify(writer).flush();
+    }
+
+    @Test
+    void emptySheetWritesNothing() {
+        ImportPipeline pipeline = new ImportPipeline(validator, divisions, executor, writer, 0, null);
+        pipeline.accept(row(0, "Номер", null));
+        pipeline.finish();
+
+        assertThat(written).isEmpty();
+        assertThat(pipeline.getRejections()).isEmpty();
+    }
+
+    @Test
+    void validationFailureStopsImport() {
+        ImportPipeline pipeline = new ImportPipeline(validator, divisions, executor, writer, 0, null);
+        pipeline.accept(row(2, "1.", "Раздел"));
+        pipeline.accept(row(3, "2.", "fail"));
+
+        assertThatThrownBy(pipeline::finish).isInstanceOf(IllegalStateException.class).hasMessage("сбой проверки");
+        verify(writer, never()).flush();
+    }
+
+    @Test
+    void hierarchyErrorsAreAppendedInFileOrder() {
+        IndicatorHierarchyIndex index = new IndicatorHierarchyIndex();
+        ImportPipeline pipeline = new ImportPipeline(validator, divisions, executor, writer, 0,
+                new HierarchyImportCheck(index, false));
+        pipeline.accept(row(2, "1.", "Раздел"));
+        pipeline.accept(row(3, "1.1.", "Раздел"));
+        pipeline.accept(row(4, "1.1.", "bad"));
+        pipeline.accept(row(5, "2.1.", "Раздел"));
+        pipeline.finish();
+
+        assertThat(written).containsExactly("1.", "1.1.", "1.1.!|!структ|!дубль_номера", "2.1.!|!нет_родителя");
+        assertThat(pipeline.getRejections()).containsOnlyKeys(
+                ImportRule.STRUCTURE, ImportRule.DUPLICATE_NUMBER, ImportRule.MISSING_PARENT);
+    }
+
+    @Test
+    void upsertRejectsNumberRepeatedInFile() {
+        when(writer.isRepeatedNumber("1.02.")).thenReturn(true);
+        ImportPipeline pipeline = new ImportPipeline(validator, divisions, executor, writer, 0, null);
+        pipeline.accept(row(2, "1.2.", "Раздел"));
+        pipeline.accept(row(3, "1.02.", "Раздел"));
+        pipeline.accept(row(4, "1.2.0.", "Раздел"));
+        pipeline.finish();
+
+        assertThat(written).containsExactly("1.2.", "1.02.!|!дубль_номера", "1.2.0.");
+        assertThat(pipeline.getRejections()).containsExactlyEntriesOf(Map.of(ImportRule.DUPLICATE_NUMBER, 1L));
+    }
+}
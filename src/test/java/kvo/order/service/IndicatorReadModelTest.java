@@ -0,0 +1,56 @@
+package kvo.order.service;
+
+import kvo.order.model.ErrorIndicator;
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndicatorReadModelTest {
+    private final IndicatorReadModel readModel = new IndicatorReadModel();
+
+    private static TargetIndicator indicator(long id, String number, String goal) {
+        TargetIndicator indicator = new TargetIndicator();
+        indicator.setId(id);
+        indicator.setNumber(number);
+        indicator.setGoal(goal);
+        indicator.setDivisions("Группа, ДКА");
+        indicator.setVersion(0L);
+        return indicator;
+    }
+
+    @Test
+    void publishedRowsAreDetachedCopies() {
+        TargetIndicator entity = indicator(1, "1.", "Цель");
+        ErrorIndicator error = new ErrorIndicator();
+        error.setId(7L);
+        error.setNumber("2.");
+        error.setErrorMessage("|!структ");
+        readModel.update(new IndicatorReadModel.Changes().saveIndicators(List.of(entity))
+                .saveErrors(List.of(error)).detached());
+
+        // сущность меняется после публикации (правка в той же сессии) - снимок остаётся прежним
+        entity.setGoal("Другая цель");
+        entity.setDivisions("ДКА");
+        error.setErrorMessage("");
+        TargetIndicator published = readModel.current().getIndicators().get(0);
+        assertThat(published).isNotSameAs(entity);
+        assertThat(published.getGoal()).isEqualTo("Цель");
+        assertThat(published.getDivisions()).isEqualTo("Группа, ДКА");
+        assertThat(published.getSortKey()).isEqualTo(TargetIndicator.sortKeyOf("1."));
+        assertThat(published.getVersion()).isZero();
+        assertThat(readModel.current().getErrors().get(0).getErrorMessage()).isEqualTo("|!структ");
+    }
+
+    @Test
+    void changesKeepOrderAndRemovals() {
+        readModel.update(new IndicatorReadModel.Changes().saveIndicators(
+                List.of(indicator(2, "1.10.", "b"), indicator(1, "1.2.", "a"), indicator(3, "1.", "c"))).detached());
+        readModel.update(new IndicatorReadModel.Changes().removeIndicators(List.of(1L))
+                .saveIndicators(List.of(indicator(4, "1.3.", "d"))).detached());
+        assertThat(readModel.current().getIndicators()).extracting(TargetIndicator::getNumber)
+                .containsExactly("1.", "1.3.", "1.10.");
+    }
+}
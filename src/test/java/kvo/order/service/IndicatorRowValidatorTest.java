@@ -0,0 +1,169 @@
+package kvo.order.service;
+
+import kvo.order.config.DivisionRegistry;
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndicatorRowValidatorTest {
+    private final IndicatorRowValidator validator = new IndicatorRowValidator();
+    private final DivisionRegistry divisions = new DivisionRegistry(
+            List.of(new TargetIndicator.Division("Группа"), new TargetIndicator.Division("ДКА")), 1);
+
+    // Корректная строка "Цель": обязательны сроки, координатор, дивизион и владелец
+    private static String[] goalRow() {
+        return new String[]{"1.1.", "Цель", "2", "Текст цели", "01-03-2024", "15-06-2024", "GAZ\\ivanov",
+                "Группа; ДКА", "GAZ\\petrov", "GAZ\\a, GAZ\\b", "", "Бизнес"};
+    }
+
+    private RowValidation validate(String[] values) {
+        return validator.validate(new ImportRow(5, values), divisions);
+    }
+
+    private RowValidation validateWith(int column, String value) {
+        String[] values = goalRow();
+        values[column] = value;
+        return validate(values);
+    }
+
+    @Test
+    void validRowPasses() {
+        RowValidation result = validate(goalRow());
+        assertThat(result.isValid()).as(result.getErrorMessage()).isTrue();
+        assertThat(result.getRules()).isEmpty();
+        TargetIndicator indicator = result.getIndicator();
+        assertThat(indicator.getStructure()).isEqualTo(TargetIndicator.Structure.ЦЕЛЬ);
+        assertThat(indicator.getDivisions()).isEqualTo("Группа, ДКА");
+        assertThat(indicator.getOwner()).isEqualTo("GAZ\\petrov");
+    }
+
+    @Test
+    void headerRowsAreSkipped() {
+        assertThat(validator.validate(new ImportRow(0, goalRow()), divisions)).isNull();
+        assertThat(validator.validate(new ImportRow(1, goalRow()), divisions)).isNull();
+    }
+
+    @Test
+    void numberFormat() {
+        assertThat(validateWith(0, "").getRules()).contains(ImportRule.NUMBER_EMPTY);
+        assertThat(validateWith(0, null).getRules()).contains(ImportRule.NUMBER_EMPTY);
+        assertThat(validateWith(0, "1.1").getRules()).contains(ImportRule.NUMBER_FORMAT);
+        assertThat(validateWith(0, "1. 1.").getRules()).contains(ImportRule.NUMBER_FORMAT);
+        assertThat(validateWith(0, "1.a.").getRules()).contains(ImportRule.NUMBER_FORMAT);
+    }
+
+    @Test
+    void numberOfDotsOnlyIsRowError() {
+        for (String number : List.of(".", "..")) {
+            RowValidation result = validateWith(0, number);
+            assertThat(result.getRules()).as(number).containsExactly(ImportRule.NUMBER_FORMAT);
+            assertThat(result.getIndicator().getNumber()).isEqualTo(number);
+            // такой номер и не корневой: для "Раздел" добавляется ошибка структуры номера
+            String[] section = goalRow();
+            section[0] = number;
+            section[1] = "Раздел";
+            assertThat(validate(section).getRules()).as(number)
+                    .containsExactlyInAnyOrder(ImportRule.NUMBER_FORMAT, ImportRule.NUMBER_STRUCTURE);
+        }
+    }
+
+    @Test
+    void rootNumberMustBeSection() {
+        assertThat(validateWith(0, "1.").getRules()).containsExactly(ImportRule.NUMBER_STRUCTURE);
+        String[] section = goalRow();
+        section[1] = "Раздел";
+        assertThat(validate(section).getRules()).containsExactly(ImportRule.NUMBER_STRUCTURE);
+        section[0] = "1.";
+        assertThat(validate(section).isValid()).isTrue();
+    }
+
+    @Test
+    void structure() {
+        assertThat(validateWith(1, "").getRules()).contains(ImportRule.STRUCTURE);
+        RowValidation unknown = validateWith(1, "Проект");
+        assertThat(unknown.getRules()).contains(ImportRule.STRUCTURE);
+        assertThat(unknown.getIndicator().getStructure()).isEqualTo(TargetIndicator.Structure.error);
+        assertThat(validateWith(1, "цель").isValid()).isTrue();
+    }
+
+    @Test
+    void level() {
+        assertThat(validateWith(2, "р").isValid()).isTrue();
+        assertThat(validateWith(2, "р").getIndicator().getLevel()).isEqualTo("Р");
+        assertThat(validateWith(2, "5").getRules()).containsExactly(ImportRule.LEVEL);
+        assertThat(validateWith(2, "").getRules()).containsExactly(ImportRule.LEVEL);
+        assertThat(validateWith(2, "два").getRules()).containsExactly(ImportRule.LEVEL);
+        // ячейки нет - ошибка строки, а не исключение
+        RowValidation missing = validateWith(2, null);
+        assertThat(missing.getRules()).containsExactly(ImportRule.LEVEL);
+        assertThat(missing.getIndicator().getLevel()).isEqualTo("Нет уровня");
+    }
+
+    @Test
+    void goal() {
+        assertThat(validateWith(3, "").isValid()).isTrue();
+        RowValidation missing = validateWith(3, null);
+        assertThat(missing.getRules()).containsExactly(ImportRule.GOAL);
+        assertThat(missing.getErrorMessage()).contains("|!Нет цели NULL");
+    }
+
+    @Test
+    void deadlines() {
+        assertThat(validateWith(4, "").getRules()).contains(ImportRule.DEADLINE_START);
+        assertThat(validateWith(5, "").getRules()).containsExactly(ImportRule.DEADLINE_END);
+        assertThat(validateWith(5, "01-03-2024").getRules()).containsExactly(ImportRule.DEADLINE_END);
+        assertThat(validateWith(5, "28-02-2024").getRules()).containsExactly(ImportRule.DEADLINE_END);
+        // день больше длины месяца приводится к последнему дню, как у DateTimeFormatter (SMART)
+        assertThat(validateWith(5, "31-06-2024").isValid()).isTrue();
+    }
+
+    @Test
+    void unparsableDatesAreRowErrors() {
+        assertThat(validateWith(5, "15.06.2024").getRules()).containsExactly(ImportRule.DEADLINE_END);
+        assertThat(validateWith(5, "32-06-2024").getRules()).containsExactly(ImportRule.DEADLINE_END);
+        assertThat(validateWith(4, "весна").getRules()).containsExactly(ImportRule.DEADLINE_START);
+        RowValidation emptyStart = validateWith(4, "");
+        assertThat(emptyStart.getRules()).containsExactly(ImportRule.DEADLINE_START);
+        assertThat(emptyStart.getErrorMessage()).isEqualTo("|!датаСтарт");
+    }
+
+    @Test
+    void people() {
+        assertThat(validateWith(6, "").getRules()).containsExactly(ImportRule.COORDINATOR);
+        assertThat(validateWith(6, "GAZ\\a;GAZ\\b").isValid()).isTrue();
+        assertThat(validateWith(6, "ivanov").getRules()).containsExactly(ImportRule.COORDINATOR);
+        assertThat(validateWith(8, "GAZ\\a;GAZ\\b").getRules()).containsExactly(ImportRule.OWNER);
+        assertThat(validateWith(8, "").getRules()).containsExactly(ImportRule.OWNER);
+        assertThat(validateWith(9, "GAZ\\a;;ivanov").getRules()).containsExactly(ImportRule.RESPONSIBLES);
+        assertThat(validateWith(10, "GAZ\\a x").getRules()).containsExactly(ImportRule.ADDITIONAL_RESPONSIBLES);
+
+        String[] section = goalRow();
+        section[0] = "1.";
+        section[1] = "Раздел";
+        section[6] = "GAZ\\a;GAZ\\b";
+        assertThat(validate(section).getRules()).containsExactly(ImportRule.COORDINATOR);
+        section[6] = "";
+        assertThat(validate(section).isValid()).isTrue();
+    }
+
+    @Test
+    void divisions() {
+        assertThat(validateWith(7, "").getRules()).containsExactly(ImportRule.DIVISION);
+        RowValidation unknown = validateWith(7, "Группа;Неизвестный");
+        assertThat(unknown.getRules()).containsExactly(ImportRule.DIVISION);
+        assertThat(unknown.getIndicator().getDivisions()).isEqualTo("error");
+    }
+
+    @Test
+    void errorMessageAccumulatesRules() {
+        String[] values = goalRow();
+        values[2] = "5";
+        values[8] = "";
+        RowValidation result = validate(values);
+        assertThat(result.getRules()).containsExactlyInAnyOrder(ImportRule.LEVEL, ImportRule.OWNER);
+        assertThat(result.getErrorMessage()).isEqualTo("|!уровень_несоответствует_структуре|!влад");
+    }
+}
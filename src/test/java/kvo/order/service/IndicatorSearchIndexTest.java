@@ -0,0 +1,115 @@
+package kvo.order.service;
+
+import kvo.order.model.TargetIndicator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndicatorSearchIndexTest {
+    private final IndicatorSearchIndex index = new IndicatorSearchIndex();
+
+    private static TargetIndicator indicator(long id, String goal) {
+        TargetIndicator indicator = new TargetIndicator();
+        indicator.setId(id);
+        indicator.setNumber(id + ".");
+        indicator.setGoal(goal);
+        return indicator;
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).getHits().stream().map(IndicatorSearchIndex.Hit::getId).toList();
+    }
+
+    @Test
+    void rankingFollowsBm25() {
+        TargetIndicator inBusiness = indicator(4, "другое");
+        inBusiness.setBusiness("Энергосбыт");
+        index.rebuild(List.of(
+                indicator(1, "Снижение затрат на ремонт оборудования станции и сетей"),
+                indicator(2, "Затраты, затраты и затраты"),
+                indicator(3, "Затраты"),
+                inBusiness,
+                indicator(5, "Энергосбыт региона")));
+
+        // чаще встречается - выше; при одной частоте короткий документ выше длинного
+        assertThat(ids("затраты")).containsExactly(2L, 3L);
+        assertThat(ids("затрат")).containsExactly(1L, 2L, 3L);
+        assertThat(index.search("затрат", 10).getHits().get(0).getScore())
+                .isGreaterThan(index.search("затрат", 10).getHits().get(1).getScore());
+        // цель весит больше бизнеса
+        assertThat(ids("энергосбыт")).containsExactly(5L, 4L);
+        // равная релевантность - порядок номеров
+        index.rebuild(List.of(indicator(20, "план"), indicator(3, "план"), indicator(11, "план")));
+        assertThat(ids("план")).containsExactly(3L, 11L, 20L);
+    }
+
+    @Test
+    void prefixMatchesRankBelowExactWord() {
+        TargetIndicator person = indicator(3, "отчёт");
+        person.setOwner("GAZ\\ivanov");
+        index.rebuild(List.of(indicator(1, "Энергетика"), indicator(2, "Энерг"), person));
+
+        assertThat(ids("энерг")).containsExactly(2L, 1L);
+        assertThat(ids("ЭНЕРГЕТ")).containsExactly(1L);
+        assertThat(ids("отчет")).containsExactly(3L);
+        assertThat(ids("iva")).containsExactly(3L);
+        // все слова запроса должны совпасть
+        assertThat(ids("энерг отч")).isEmpty();
+        assertThat(ids("gaz отч")).containsExactly(3L);
+        assertThat(ids("энергия")).isEmpty();
+    }
+
+    @Test
+    void indexFollowsEditDeleteAndImport() {
+        index.rebuild(List.of(indicator(1, "Ремонт сетей"), indicator(2, "Ремонт станций")));
+        assertThat(ids("ремонт")).containsExactlyInAnyOrder(1L, 2L);
+
+        // правка: старые термы документа удаляются
+        index.putAll(List.of(indicator(1, "Строительство сетей")));
+        assertThat(ids("ремонт")).containsExactly(2L);
+        assertThat(ids("строит")).containsExactly(1L);
+        assertThat(ids("сетей")).containsExactly(1L);
+
+        // удаление
+        index.removeAll(List.of(2L));
+        assertThat(ids("ремонт")).isEmpty();
+        assertThat(ids("станций")).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+
+        // импорт новых строк
+        index.putAll(List.of(indicator(3, "Ремонт подстанций"), indicator(4, "Строительство дорог")));
+        assertThat(ids("ремонт")).containsExactly(3L);
+        assertThat(ids("строительство")).hasSize(2);
+        assertThat(index.size()).isEqualTo(3);
+
+        // индикатор без текста не попадает в индекс, термы удалённых документов не остаются
+        index.putAll(List.of(indicator(3, null)));
+        index.removeAll(List.of(1L, 4L));
+        assertThat(index.size()).isZero();
+        assertThat(index.termCount()).isZero();
+        assertThat(index.search("ремонт", 10).getTotal()).isZero();
+    }
+
+    @Test
+    void shortPrefixOverTermLimitIsMarkedTruncated() {
+        List<TargetIndicator> indicators = new ArrayList<>();
+        // 1500 разных слов на "энерг": префикс раскрывается только в первые 1000 термов
+        for (int i = 0; i < 1500; i++) {
+            indicators.add(indicator(i + 1, "энерг" + i + " план"));
+        }
+        index.rebuild(indicators);
+
+        IndicatorSearchIndex.Result prefix = index.search("энерг", 10);
+        assertThat(prefix.isTruncated()).isTrue();
+        assertThat(prefix.getTotal()).isEqualTo(1000);
+
+        IndicatorSearchIndex.Result word = index.search("план", 10);
+        assertThat(word.isTruncated()).isFalse();
+        assertThat(word.getTotal()).isEqualTo(1500);
+        assertThat(index.search("энерг1499", 10).isTruncated()).isFalse();
+        assertThat(index.search("нет", 10).isTruncated()).isFalse();
+    }
+}
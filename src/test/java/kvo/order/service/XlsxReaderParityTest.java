@@ -0,0 +1,192 @@
+package kvo.order.service;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Потоковое чтение (XlsxStreamingReader) и DOM (IndicatorService.toImportRow) дают одинаковые строки
+class XlsxReaderParityTest {
+    private static final String SHEET_XML = "xl/worksheets/sheet1.xml";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void formulasAreReadAsCachedValues() throws IOException {
+        Path file = dir.resolve("formulas.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = createSheet(workbook);
+            CellStyle dateStyle = dateStyle(workbook);
+            Row row = sheet.createRow(2);
+            row.createCell(0).setCellFormula("\"1.\"");
+            row.createCell(1).setCellFormula("\"Раздел \"");
+            row.createCell(2).setCellFormula("2.5*2");
+            row.createCell(3).setCellFormula("2.5*1");
+            Cell date = row.createCell(4);
+            date.setCellFormula("DATE(2024,12,31)");
+            date.setCellStyle(dateStyle);
+            row.createCell(5).setCellFormula("1/0");
+            row.createCell(6).setCellFormula("\"GAZ\\\"&\"ivanov \"");
+            row.createCell(7).setCellFormula("1=1");
+            for (int r = 3; r < 6; r++) {
+                Row shared = sheet.createRow(r);
+                shared.createCell(0).setCellValue(r + ".");
+                shared.createCell(9).setCellFormula("A" + (r + 1) + "&\" x \"");
+            }
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            write(workbook, file);
+        }
+        // POI пишет каждую формулу отдельно; J5:J6 превращаем в общую формулу, как сохраняет Excel
+        rewriteSheet(file, xml -> xml
+                .replaceFirst("<f>A4&amp;\" x \"</f>", "<f t=\"shared\" ref=\"J4:J6\" si=\"0\">A4&amp;\" x \"</f>")
+                .replaceFirst("<f>A5&amp;\" x \"</f>", "<f t=\"shared\" si=\"0\"/>")
+                .replaceFirst("<f>A6&amp;\" x \"</f>", "<f t=\"shared\" si=\"0\"/>"));
+
+        List<String> streamed = readStreaming(file);
+        assertThat(streamed).isEqualTo(readDom(file));
+        assertThat(streamed).contains(
+                "2:[1., Раздел, 5, 2.5, 31-12-2024, , GAZ\\ivanov, true, null, null, null, null]",
+                "3:[3., null, null, null, null, null, null, null, null, 3. x, null, null]",
+                "5:[5., null, null, null, null, null, null, null, null, 5. x, null, null]");
+    }
+
+    @Test
+    void sharedStringsNumbersAndDatesMatch() throws IOException {
+        Path file = dir.resolve("values.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            fillValues(workbook);
+            write(workbook, file);
+        }
+        List<String> streamed = readStreaming(file);
+        assertThat(streamed).isEqualTo(readDom(file));
+        assertThat(streamed).contains(
+                "2:[1.1., Цель, 2, 1.25, 01-03-2024, 15-06-2024,  GAZ\\petrov ; GAZ\\ivanov, , true, null, null, null]");
+    }
+
+    @Test
+    void inlineStringsMatch() throws IOException {
+        // SXSSF пишет строки как inlineStr, без таблицы общих строк
+        Path file = dir.resolve("inline.xlsx");
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+            fillValues(workbook);
+            write(workbook, file);
+        }
+        assertThat(readStreaming(file)).isEqualTo(readDom(file));
+    }
+
+    private static void fillValues(Workbook workbook) {
+        Sheet sheet = createSheet(workbook);
+        CellStyle dateStyle = dateStyle(workbook);
+        Row row = sheet.createRow(2);
+        row.createCell(0).setCellValue("1.1.");
+        row.createCell(1).setCellValue("Цель");
+        row.createCell(2).setCellValue(2);
+        row.createCell(3).setCellValue(1.25);
+        Cell start = row.createCell(4);
+        start.setCellValue(LocalDateTime.of(2024, 3, 1, 0, 0));
+        start.setCellStyle(dateStyle);
+        Cell end = row.createCell(5);
+        end.setCellValue(LocalDateTime.of(2024, 6, 15, 0, 0));
+        end.setCellStyle(dateStyle);
+        row.createCell(6).setCellValue(" GAZ\\petrov ; GAZ\\ivanov");
+        row.createCell(7).setBlank();
+        row.createCell(8).setCellValue(true);
+        // пустая строка между данными и строка с пропусками столбцов
+        sheet.createRow(4);
+        Row sparse = sheet.createRow(5);
+        sparse.createCell(0).setCellValue(".");
+        sparse.createCell(11).setCellValue("Бизнес");
+    }
+
+    private static Sheet createSheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("СВОД");
+        sheet.createRow(0).createCell(0).setCellValue("Номер");
+        sheet.createRow(1).createCell(0).setCellValue("1");
+        return sheet;
+    }
+
+    private static CellStyle dateStyle(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat("dd.mm.yyyy"));
+        return style;
+    }
+
+    private static void write(Workbook workbook, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            workbook.write(out);
+        }
+    }
+
+    private List<String> readStreaming(Path file) throws IOException {
+        List<String> rows = new ArrayList<>();
+        new XlsxStreamingReader().readFirstSheet(file.toFile(), new XlsxStreamingReader.RowHandler() {
+            @Override
+            public boolean startSheet(String sheetName) {
+                return true;
+            }
+
+            @Override
+            public void row(ImportRow row) {
+                rows.add(format(row));
+            }
+        });
+        return rows;
+    }
+
+    private List<String> readDom(Path file) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (Workbook workbook = WorkbookFactory.create(file.toFile(), null, true)) {
+            for (Row row : workbook.getSheetAt(0)) {
+                rows.add(format(IndicatorService.toImportRow(row)));
+            }
+        }
+        return rows;
+    }
+
+    private static String format(ImportRow row) {
+        String[] values = new String[ImportRow.COLUMN_COUNT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.raw(i);
+        }
+        return row.getRowNum() + ":" + Arrays.toString(values);
+    }
+
+    private void rewriteSheet(Path file, UnaryOperator<String> rewrite) throws IOException {
+        Path rewritten = dir.resolve("rewritten.xlsx");
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(file));
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(rewritten))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                byte[] content = in.readAllBytes();
+                if (SHEET_XML.equals(entry.getName())) {
+                    String xml = rewrite.apply(new String(content, StandardCharsets.UTF_8));
+                    assertThat(xml).contains("t=\"shared\"");
+                    content = xml.getBytes(StandardCharsets.UTF_8);
+                }
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+        Files.move(rewritten, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}